@@ -0,0 +1,55 @@
+package com.learnerview.simplydone.config;
+
+import com.learnerview.simplydone.service.SchedulerEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Subscribes workers to the enqueue wake-up channel so idle schedulers react without waiting for the next poll.
+ * The container is started here, not during refresh, so a worker still boots while Redis is down.
+ */
+@Configuration
+@Profile("worker")
+@ConditionalOnProperty(name = "simplydone.scheduler.wakeup.enabled", havingValue = "true")
+@Slf4j
+public class QueueWakeupConfig {
+
+    private RedisMessageListenerContainer container;
+
+    @Bean
+    public RedisMessageListenerContainer queueWakeupListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                      SchedulerEngine schedulerEngine,
+                                                                      SchedulerProperties props) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> schedulerEngine.wakeUp(),
+                new ChannelTopic(props.getScheduler().getWakeup().getChannel()));
+        this.container = container;
+        return container;
+    }
+
+    @Scheduled(fixedDelay = RedisMessageListenerContainer.DEFAULT_RECOVERY_INTERVAL)
+    public void subscribeWhenAvailable() {
+        if (container == null || container.isRunning()) return;
+        try {
+            container.start();
+            log.info("Subscribed to queue wake-up notifications");
+        } catch (RuntimeException e) {
+            // Reset the container so the next attempt starts from scratch.
+            container.stop();
+            log.debug("Wake-up subscription failed, retrying: {}", e.getMessage());
+        }
+    }
+}
@@ -14,12 +14,23 @@ public class SchedulerProperties {
     private final Retry retry = new Retry();
     private final Worker worker = new Worker();
     private final Queue queue = new Queue();
+    private final RedisMode redisMode = new RedisMode();
+    private final Http http = new Http();
+    private final HostIsolation hostIsolation = new HostIsolation();
+    private final Signing signing = new Signing();
+    private final Callback callback = new Callback();
+    private final BatchHttp batchHttp = new BatchHttp();
 
     @Data
     public static class Scheduler {
         private long pollingIntervalMs = 1000;
         private String queuePrefix = "simplydone:queue";
+        /** How free dispatch slots are split across the priority lanes. */
+        private Policy policy = Policy.DRR;
         private final Weights weights = new Weights();
+        private final Aging aging = new Aging();
+        private final Cost cost = new Cost();
+        private final Wakeup wakeup = new Wakeup();
 
         @Data
         public static class Weights {
@@ -27,6 +38,32 @@ public class SchedulerProperties {
             private int normal = 20;
             private int low = 10;
         }
+
+        @Data
+        public static class Aging {
+            /** A lane with ready work moves up one priority level for every interval it goes unserved. */
+            private long intervalMs = 5000;
+        }
+
+        @Data
+        public static class Cost {
+            /** Charge lanes by each job's expected duration instead of one unit per job (DRR and WFQ only). */
+            private boolean enabled = true;
+            /** Weight of the newest duration in each (producer, host) running estimate. */
+            private double smoothing = 0.2;
+            /** A job is charged at most this many times, and at least one over this many times, an average job. */
+            private double maxRatio = 20;
+            private int maxKeys = 10000;
+            /** Execution logs this far back seed the estimates at startup; 0 starts cold. */
+            private int warmupHours = 24;
+        }
+
+        @Data
+        public static class Wakeup {
+            private boolean enabled = false;
+            private String channel = "simplydone:queue:wakeup";
+            private long safetyPollIntervalMs = 30000;
+        }
     }
 
     @Data
@@ -45,12 +82,118 @@ public class SchedulerProperties {
     @Data
     public static class Worker {
         private int leaseTimeoutSeconds = 30;
+        private long heartbeatIntervalMs = 10000;
+        private int leaseGraceSeconds = 30;
+        private int concurrency = 8;
         private long retryPromoterIntervalMs = 1000;
         private long leaseReaperIntervalMs = 5000;
+        private ExecutionMode executionMode = ExecutionMode.BLOCKING;
+        private int maxInFlight = 1000;
+        private int asyncCompletionThreads = 4;
+        private final Sweep sweep = new Sweep();
+
+        /** Retry promotion and lease recovery; one elected node runs them unless the backlog needs help. */
+        @Data
+        public static class Sweep {
+            /** Off: every worker sweeps every row, as a single node would. */
+            private boolean leaderElection = true;
+            /** How long a sweep lease lasts without renewal; must exceed both sweep intervals, one batch and one reconciler page. */
+            private long leaseMs = 15000;
+            private int batchSize = 100;
+            /** Full batches one node works through per tick before it asks other nodes for help. */
+            private int maxBatchesPerTick = 10;
+            /** Hash partitions of the rows while helpers are sweeping; at most 16. */
+            private int partitions = 4;
+            /** How long helpers keep sweeping after the leader last reported a backlog. */
+            private long helpMs = 30000;
+        }
+    }
+
+    public enum Policy {
+        /** Deficit round-robin over the lane weights; idle lanes bank credit. */
+        DRR,
+        /** Always drains the highest priority lane first; lower lanes can starve. */
+        STRICT,
+        /** Weighted fair queuing over the lane weights; idle lanes bank nothing. */
+        WFQ,
+        /** Strict priority where waiting lanes are promoted by {@code aging.intervalMs}. */
+        AGING
+    }
+
+    public enum ExecutionMode {
+        /** One dispatch thread per in-flight job, capped by {@code concurrency}. */
+        BLOCKING,
+        /** Non-blocking HTTP calls, capped by {@code maxInFlight}; a few threads run completions. */
+        ASYNC
     }
 
     @Data
     public static class Queue {
         private long maxDepth = 10000;
+        private int promoteBatchSize = 500;
+        private long horizonSeconds = 600;
+        private int horizonLoaderBatchSize = 500;
+        private long horizonLoaderIntervalMs = 60000;
+    }
+
+    @Data
+    public static class Http {
+        private int maxConnections = 200;
+        private int maxConnectionsPerHost = 100;
+        private long idleTimeoutSeconds = 30;
+        private int ioThreads = 2;
+        private int maxResultBytes = 65536;
+        private long maxResponseBytes = 10 * 1024 * 1024;
+    }
+
+    @Data
+    public static class HostIsolation {
+        private long idleEvictionSeconds = 600;
+        private long evictionIntervalMs = 60000;
+        private long busyDeferMs = 1000;
+        private long publishIntervalMs = 5000;
+        private boolean adaptiveConcurrency = true;
+        private int initialConcurrency = 10;
+        private int minConcurrency = 1;
+        private int maxConcurrency = 100;
+        private double backoffRatio = 0.9;
+        private double latencyTolerance = 2.0;
+    }
+
+    @Data
+    public static class Signing {
+        private long keyCacheTtlSeconds = 300;
+        private String channel = "simplydone:signing-keys:changed";
+    }
+
+    @Data
+    public static class Callback {
+        private boolean enabled = true;
+        private long pollIntervalMs = 1000;
+        private int threads = 4;
+        private int batchSize = 20;
+        private int maxAttempts = 8;
+        private long initialBackoffSeconds = 5;
+        private long maxBackoffSeconds = 3600;
+        private int timeoutSeconds = 10;
+        private long leaseSeconds = 60;
+        private long retentionHours = 24;
+        private long purgeIntervalMs = 3600000;
+    }
+
+    @Data
+    public static class BatchHttp {
+        private int maxItems = 100;
+        private long maxWaitMs = 50;
+        private int threads = 4;
+        /** Largest batch response read; the whole body is buffered to parse it. */
+        private long maxResponseBytes = 1024 * 1024;
+    }
+
+    @Data
+    public static class RedisMode {
+        private long probeIntervalMs = 1000;
+        private int failuresToDegrade = 2;
+        private int successesToRecover = 5;
     }
 }
@@ -0,0 +1,58 @@
+package com.learnerview.simplydone.config;
+
+import com.learnerview.simplydone.service.WebhookSigner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Subscribes workers to signing key changes so {@link WebhookSigner} drops a rotated or revoked key.
+ * Subscribing clears the whole cache, since changes published before then were missed.
+ */
+@Configuration
+@Profile("worker")
+@Slf4j
+public class SigningKeyListenerConfig {
+
+    private RedisMessageListenerContainer container;
+    private WebhookSigner signer;
+
+    @Bean
+    public RedisMessageListenerContainer signingKeyListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                     WebhookSigner signer,
+                                                                     SchedulerProperties props) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> signer.invalidate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(props.getSigning().getChannel()));
+        this.container = container;
+        this.signer = signer;
+        return container;
+    }
+
+    @Scheduled(fixedDelay = RedisMessageListenerContainer.DEFAULT_RECOVERY_INTERVAL)
+    public void subscribeWhenAvailable() {
+        if (container == null || container.isRunning()) return;
+        try {
+            container.start();
+            signer.invalidateAll();
+            log.info("Subscribed to signing key changes");
+        } catch (RuntimeException e) {
+            container.stop();
+            log.debug("Signing key subscription failed, retrying: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.learnerview.simplydone.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pooled keep-alive HTTP clients shared by every webhook call: a classic one, and in async execution
+ * mode a non-blocking one with a small pool for the completion work that touches the database.
+ */
+@Configuration
+@Profile("worker")
+public class WebhookHttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager webhookConnectionManager(SchedulerProperties props,
+                                                                       MeterRegistry meterRegistry) {
+        SchedulerProperties.Http http = props.getHttp();
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerHost())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        // Re-check connections idle this long before reuse; tenants close them on their own schedule.
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "webhooks").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient webhookHttpClient(PoolingHttpClientConnectionManager webhookConnectionManager,
+                                                 SchedulerProperties props) {
+        return HttpClients.custom()
+                .setConnectionManager(webhookConnectionManager)
+                .evictIdleConnections(TimeValue.ofSeconds(props.getHttp().getIdleTimeoutSeconds()))
+                .evictExpiredConnections()
+                // RetryService owns retries; a transparent re-send could deliver a webhook twice.
+                .disableAutomaticRetries()
+                .disableRedirectHandling()
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "simplydone.worker.execution-mode", havingValue = "async")
+    public CloseableHttpAsyncClient webhookAsyncHttpClient(SchedulerProperties props, MeterRegistry meterRegistry) {
+        SchedulerProperties.Http http = props.getHttp();
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerHost())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "webhooks-async").bindTo(meterRegistry);
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(http.getIoThreads()).build())
+                .evictIdleConnections(TimeValue.ofSeconds(http.getIdleTimeoutSeconds()))
+                .evictExpiredConnections()
+                .disableAutomaticRetries()
+                .disableRedirectHandling()
+                .build();
+        client.start();
+        return client;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "simplydone.worker.execution-mode", havingValue = "async")
+    public ExecutorService webhookCompletionExecutor(SchedulerProperties props) {
+        return Executors.newFixedThreadPool(Math.max(1, props.getWorker().getAsyncCompletionThreads()),
+                new CustomizableThreadFactory("webhook-completion-"));
+    }
+}
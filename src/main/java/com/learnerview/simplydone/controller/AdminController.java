@@ -29,6 +29,12 @@ public class AdminController {
                 .success(true).data(adminService.getStats()).build());
     }
 
+    @GetMapping("/hosts")
+    public ResponseEntity<ApiResponse<List<HostLimitResponse>>> hosts() {
+        return ResponseEntity.ok(ApiResponse.<List<HostLimitResponse>>builder()
+                .success(true).data(adminService.getHostLimits()).build());
+    }
+
     @DeleteMapping("/queues")
     public ResponseEntity<ApiResponse<Void>> clearQueues() {
         adminService.clearQueues();
@@ -68,6 +74,26 @@ public class AdminController {
                 .success(true).message("API Key revoked").build());
     }
 
+    @GetMapping("/producers/weights")
+    public ResponseEntity<ApiResponse<List<ProducerWeightResponse>>> producerWeights() {
+        return ResponseEntity.ok(ApiResponse.<List<ProducerWeightResponse>>builder()
+                .success(true).data(adminService.listProducerWeights()).build());
+    }
+
+    @PutMapping("/producers/{producer}/weight")
+    public ResponseEntity<ApiResponse<ProducerWeightResponse>> setProducerWeight(
+            @PathVariable String producer, @RequestBody ProducerWeightRequest request) {
+        return ResponseEntity.ok(ApiResponse.<ProducerWeightResponse>builder()
+                .success(true).data(adminService.setProducerWeight(producer, request.getWeight())).build());
+    }
+
+    @DeleteMapping("/producers/{producer}/weight")
+    public ResponseEntity<ApiResponse<Void>> resetProducerWeight(@PathVariable String producer) {
+        adminService.resetProducerWeight(producer);
+        return ResponseEntity.ok(ApiResponse.<Void>builder()
+                .success(true).message("Producer weight reset to 1").build());
+    }
+
     @GetMapping("/settings/email-verification")
     public ResponseEntity<ApiResponse<EmailVerificationSettingsResponse>> emailVerificationSettings() {
         return ResponseEntity.ok(ApiResponse.<EmailVerificationSettingsResponse>builder()
@@ -2,6 +2,7 @@ package com.learnerview.simplydone.controller;
 
 import com.learnerview.simplydone.dto.*;
 import com.learnerview.simplydone.service.AdminService;
+import com.learnerview.simplydone.service.JobHandlerRegistry;
 import com.learnerview.simplydone.service.JobSubmissionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +31,7 @@ public class JobController {
 
     private final JobSubmissionService submissionService;
     private final AdminService adminService;
+    private final JobHandlerRegistry handlers;
 
     /** Checks if the authenticated user holds ROLE_ADMIN to determine data scope. */
     private boolean isAdmin(Authentication auth) {
@@ -38,8 +41,13 @@ public class JobController {
 
     @PostMapping
     public ResponseEntity<ApiResponse<JobSubmissionResponse>> submitJob(
+            Authentication auth,
             @AuthenticationPrincipal String producer,
             @Valid @RequestBody JobSubmissionRequest request) {
+        // Local handlers run inside the worker, so only operators may queue them.
+        if ("LOCAL".equalsIgnoreCase(request.getExecution().getType()) && !isAdmin(auth)) {
+            throw new IllegalArgumentException("execution.type LOCAL requires an admin API key");
+        }
         JobSubmissionResponse resp = submissionService.submit(producer, request);
         return ResponseEntity.status(HttpStatus.ACCEPTED)
                 .body(ApiResponse.<JobSubmissionResponse>builder()
@@ -103,6 +111,7 @@ public class JobController {
                 .success(true).message("Job re-queued from DLQ").build());
     }
 
+    /** The generic webhook executor, followed by the in-process handlers for LOCAL jobs. */
     @GetMapping("/types")
     public ResponseEntity<ApiResponse<List<HandlerInfoResponse>>> getTypes() {
         HandlerInfoResponse external = HandlerInfoResponse.builder()
@@ -110,8 +119,11 @@ public class JobController {
                 .description("Generic external HTTP execution")
                 .handlerClass("ExternalHttpExecutor")
                 .build();
+        List<HandlerInfoResponse> types = new ArrayList<>();
+        types.add(external);
+        types.addAll(handlers.describe());
         return ResponseEntity.ok(ApiResponse.<List<HandlerInfoResponse>>builder()
-                .success(true).data(List.of(external)).build());
+                .success(true).data(types).build());
     }
 
     @GetMapping("/health")
@@ -123,7 +135,7 @@ public class JobController {
                 : adminService.getStats(producer);
         Map<String, Object> health = Map.ofEntries(
                 Map.entry("status", "UP"),
-                Map.entry("handlers", 1),
+                Map.entry("handlers", 1 + handlers.size()),
                 Map.entry("highQueueSize", stats.getHighQueueSize()),
                 Map.entry("normalQueueSize", stats.getNormalQueueSize()),
                 Map.entry("lowQueueSize", stats.getLowQueueSize()),
@@ -0,0 +1,23 @@
+package com.learnerview.simplydone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class HostLimitResponse {
+    /** Worker that reported this host; every worker keeps its own limit per host. */
+    private String workerId;
+    private Instant reportedAt;
+
+    private String host;
+    private int concurrencyLimit;
+    private int inFlight;
+    /** Smoothed round-trip time; null until the worker has called the host. */
+    private Double rttMs;
+    private Double noLoadRttMs;
+    private String circuitState;
+}
@@ -15,6 +15,8 @@ public class JobResponse {
     private String priority;
     private Map<String, Object> payload;
     private String result;
+    private Long resultBytes;
+    private boolean resultTruncated;
 
     private Instant nextRunAt;
     private Instant visibleAt;
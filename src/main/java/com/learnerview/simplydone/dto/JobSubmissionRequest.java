@@ -36,7 +36,7 @@ public class JobSubmissionRequest {
         @NotBlank(message = "execution.type is required")
         private String type;
 
-        @NotBlank(message = "execution.endpoint is required")
+        /** Required for HTTP and BATCH_HTTP; LOCAL jobs run in-process. */
         private String endpoint;
     }
 }
@@ -0,0 +1,11 @@
+package com.learnerview.simplydone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class ProducerWeightRequest {
+    private int weight;
+}
@@ -0,0 +1,16 @@
+package com.learnerview.simplydone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/** Fair-share weight of one producer inside every priority lane. */
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class ProducerWeightResponse {
+    private String producer;
+    private int weight;
+    private Instant updatedAt;
+}
@@ -5,6 +5,9 @@ import lombok.Data;
 
 @Data @Builder
 public class QueueStatsResponse {
+    /** REDIS, or DATABASE while the node runs without Redis; lane sizes then come from the DB. */
+    private String queueMode;
+
     private long highQueueSize;
     private long normalQueueSize;
     private long lowQueueSize;
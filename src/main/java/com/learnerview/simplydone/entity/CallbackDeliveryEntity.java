@@ -0,0 +1,57 @@
+package com.learnerview.simplydone.entity;
+
+import com.learnerview.simplydone.model.CallbackStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/** One completion notification waiting for, or done with, delivery to a job's callbackUrl. */
+@Entity
+@Table(name = "callback_deliveries")
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class CallbackDeliveryEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String jobId;
+
+    @Column(nullable = false, length = 120)
+    private String producer;
+
+    @Column(nullable = false, length = 2000)
+    private String callbackUrl;
+
+    /** The JSON object sent for this job; batches are these objects in a {@code deliveries} array. */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CallbackStatus status;
+
+    private int attempts;
+
+    /** When the row is next due; a leased row is pushed out by the lease so a dead worker's batch comes back. */
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    /** Set by each lease; results are only written back while it still matches. */
+    @Column(length = 36)
+    private String leaseToken;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    private Instant deliveredAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,31 @@
+package com.learnerview.simplydone.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "cluster_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterLeaseEntity {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false, length = 100)
+    private String owner;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
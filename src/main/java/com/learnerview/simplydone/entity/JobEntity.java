@@ -45,6 +45,13 @@ public class JobEntity {
     @Column(columnDefinition = "TEXT")
     private String result;
 
+    /** Size of the response body the endpoint returned; {@code result} holds at most the capture limit. */
+    private Long resultBytes;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private boolean resultTruncated = false;
+
     @Column(nullable = false)
     private Instant nextRunAt;
 
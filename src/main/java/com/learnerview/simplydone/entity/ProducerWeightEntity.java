@@ -0,0 +1,31 @@
+package com.learnerview.simplydone.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "producer_weights")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProducerWeightEntity {
+
+    @Id
+    @Column(length = 120)
+    private String producer;
+
+    @Column(nullable = false)
+    private int weight;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,21 @@
+package com.learnerview.simplydone.exception;
+
+import lombok.Getter;
+
+/**
+ * The job's destination host is not taking calls right now; the job should wait, not fail.
+ * {@code busy} means the host is healthy but at its concurrency limit, as opposed to failing.
+ */
+@Getter
+public class HostUnavailableException extends RuntimeException {
+    private final String host;
+    private final long deferMs;
+    private final boolean busy;
+
+    public HostUnavailableException(String host, String reason, long deferMs, boolean busy) {
+        super("Host '" + host + "' " + reason + ", deferring for " + deferMs + "ms");
+        this.host = host;
+        this.deferMs = deferMs;
+        this.busy = busy;
+    }
+}
@@ -29,6 +29,8 @@ public class JobMapper {
                 .priority(job.getPriority().name())
                 .payload(payload)
                 .result(job.getResult())
+                .resultBytes(job.getResultBytes())
+                .resultTruncated(job.isResultTruncated())
                 .nextRunAt(job.getNextRunAt())
                 .visibleAt(job.getVisibleAt())
                 .leaseOwner(job.getLeaseOwner())
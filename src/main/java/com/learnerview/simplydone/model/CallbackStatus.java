@@ -0,0 +1,7 @@
+package com.learnerview.simplydone.model;
+
+public enum CallbackStatus {
+    PENDING,
+    DELIVERED,
+    FAILED
+}
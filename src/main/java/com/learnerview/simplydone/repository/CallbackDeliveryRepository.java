@@ -0,0 +1,46 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.entity.CallbackDeliveryEntity;
+import com.learnerview.simplydone.model.CallbackStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+
+@Repository
+public interface CallbackDeliveryRepository extends JpaRepository<CallbackDeliveryEntity, Long>,
+        CallbackDeliveryRepositoryCustom {
+
+    /** Marks leased rows delivered; rows leased again by another worker since are left alone. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CallbackDeliveryEntity d SET d.status = :delivered, d.deliveredAt = :now, d.lastError = NULL, " +
+           "d.leaseToken = NULL WHERE d.id IN :ids AND d.leaseToken = :leaseToken")
+    int markDelivered(@Param("ids") Collection<Long> ids, @Param("leaseToken") String leaseToken,
+                      @Param("delivered") CallbackStatus delivered, @Param("now") Instant now);
+
+    /** Records a failed attempt on one leased row, unless another worker has leased it since. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CallbackDeliveryEntity d SET d.status = :status, d.nextAttemptAt = :nextAttemptAt, " +
+           "d.lastError = :lastError, d.leaseToken = NULL WHERE d.id = :id AND d.leaseToken = :leaseToken")
+    int recordFailure(@Param("id") Long id, @Param("leaseToken") String leaseToken, @Param("status") CallbackStatus status,
+                      @Param("nextAttemptAt") Instant nextAttemptAt, @Param("lastError") String lastError);
+
+    /** Hands leased rows back untried: due again now, and the attempt the lease counted is undone. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CallbackDeliveryEntity d SET d.nextAttemptAt = :now, d.attempts = d.attempts - 1, " +
+           "d.leaseToken = NULL WHERE d.id IN :ids AND d.leaseToken = :leaseToken")
+    int release(@Param("ids") Collection<Long> ids, @Param("leaseToken") String leaseToken, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CallbackDeliveryEntity d WHERE d.status <> :pending AND d.createdAt < :before")
+    int deleteFinishedBefore(@Param("pending") CallbackStatus pending, @Param("before") Instant before);
+}
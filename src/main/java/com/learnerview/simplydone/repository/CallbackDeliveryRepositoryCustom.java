@@ -0,0 +1,17 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.entity.CallbackDeliveryEntity;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Statements Spring Data cannot derive, implemented in {@link CallbackDeliveryRepositoryImpl}. */
+public interface CallbackDeliveryRepositoryCustom {
+
+    /**
+     * Leases up to {@code limit} due PENDING deliveries, oldest first: each is pushed out to
+     * {@code leaseUntil}, tagged with {@code leaseToken} and has its attempt counted, so a worker
+     * that dies mid-batch only delays it. Concurrent callers never receive the same row.
+     */
+    List<CallbackDeliveryEntity> leaseDue(int limit, String leaseToken, Instant leaseUntil, Instant now);
+}
@@ -0,0 +1,51 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.entity.CallbackDeliveryEntity;
+import com.learnerview.simplydone.model.CallbackStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.List;
+
+/** Native lease for {@link CallbackDeliveryRepository}, built like the job lease in {@link JobEntityRepositoryImpl}. */
+public class CallbackDeliveryRepositoryImpl implements CallbackDeliveryRepositoryCustom {
+
+    private static final String LEASE_SET =
+            "UPDATE callback_deliveries SET next_attempt_at = :leaseUntil, attempts = attempts + 1, " +
+            "lease_token = :leaseToken ";
+
+    /** Served by idx_callback_pending_due. */
+    private static final String DUE =
+            "SELECT id FROM callback_deliveries WHERE status = :pending AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DatabaseProduct database;
+
+    public CallbackDeliveryRepositoryImpl(DataSource dataSource) {
+        this.database = new DatabaseProduct(dataSource);
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<CallbackDeliveryEntity> leaseDue(int limit, String leaseToken, Instant leaseUntil, Instant now) {
+        if (limit <= 0) return List.of();
+
+        String sql = database.isH2()
+                ? "SELECT * FROM FINAL TABLE (" + LEASE_SET + "WHERE status = :pending AND id IN (" + DUE + "))"
+                : LEASE_SET + "WHERE id IN (" + DUE + " FOR UPDATE SKIP LOCKED) RETURNING *";
+        return entityManager.createNativeQuery(sql, CallbackDeliveryEntity.class)
+                .setParameter("pending", CallbackStatus.PENDING.name())
+                .setParameter("leaseToken", leaseToken)
+                .setParameter("leaseUntil", leaseUntil)
+                .setParameter("now", now)
+                .setParameter("limit", limit)
+                .getResultList();
+    }
+}
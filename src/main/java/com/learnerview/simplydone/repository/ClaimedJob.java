@@ -0,0 +1,5 @@
+package com.learnerview.simplydone.repository;
+
+/** A job popped from a lane's ready stage, with the producer sub-queue it came from. */
+public record ClaimedJob(String id, String producer) {
+}
@@ -0,0 +1,37 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.entity.ClusterLeaseEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface ClusterLeaseRepository extends JpaRepository<ClusterLeaseEntity, String> {
+
+    /** Renews the caller's lease or takes over an expired one; 0 when someone else holds it or it has no row. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClusterLeaseEntity l SET l.owner = :owner, l.expiresAt = :until " +
+           "WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < :now)")
+    int renewOrTakeOver(@Param("name") String name, @Param("owner") String owner,
+                        @Param("until") Instant until, @Param("now") Instant now);
+
+    /** Fails with a key violation when another node created the row first. */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO cluster_leases (name, owner, expires_at) VALUES (:name, :owner, :until)",
+           nativeQuery = true)
+    int create(@Param("name") String name, @Param("owner") String owner, @Param("until") Instant until);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClusterLeaseEntity l WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+
+    boolean existsByNameAndExpiresAtAfter(String name, Instant now);
+}
@@ -0,0 +1,30 @@
+package com.learnerview.simplydone.repository;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/** Tells the native-query repositories whether they are talking to H2 or PostgreSQL. */
+final class DatabaseProduct {
+
+    private final DataSource dataSource;
+    private volatile Boolean h2;
+
+    DatabaseProduct(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    boolean isH2() {
+        if (h2 == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+                h2 = "H2".equalsIgnoreCase(product);
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("Cannot determine database product", e);
+            }
+        }
+        return h2;
+    }
+}
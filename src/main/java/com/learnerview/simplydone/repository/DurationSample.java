@@ -0,0 +1,18 @@
+package com.learnerview.simplydone.repository;
+
+/**
+ * Average execution time of one producer's jobs against one endpoint, from the execution logs.
+ */
+public interface DurationSample {
+    String getProducer();
+
+    String getExecutionType();
+
+    String getExecutionEndpoint();
+
+    String getJobType();
+
+    Double getAverageMs();
+
+    Long getSamples();
+}
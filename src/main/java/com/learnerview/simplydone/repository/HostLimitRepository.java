@@ -0,0 +1,71 @@
+package com.learnerview.simplydone.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnerview.simplydone.dto.HostLimitResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-worker snapshots of the adaptive host limits, kept in one Redis hash keyed by worker ID
+ * so API nodes can show limits owned by separate worker processes. Workers that stop reporting
+ * are dropped by the reader.
+ */
+@Repository
+@Slf4j
+public class HostLimitRepository {
+
+    private static final String KEY = "simplydone:host-limits";
+
+    /** What one worker stores under its field. */
+    private record Snapshot(Instant reportedAt, List<HostLimitResponse> hosts) {
+    }
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+
+    public HostLimitRepository(StringRedisTemplate redis, ObjectMapper objectMapper) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+    }
+
+    public void save(String workerId, Instant reportedAt, List<HostLimitResponse> hosts) {
+        try {
+            redis.opsForHash().put(KEY, workerId, objectMapper.writeValueAsString(new Snapshot(reportedAt, hosts)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise host limits", e);
+        }
+    }
+
+    /** Every host reported since {@code freshAfter}; snapshots older than that are deleted. */
+    public List<HostLimitResponse> findReportedSince(Instant freshAfter) {
+        Map<Object, Object> snapshots = redis.opsForHash().entries(KEY);
+        List<HostLimitResponse> hosts = new ArrayList<>();
+        for (Map.Entry<Object, Object> snapshot : snapshots.entrySet()) {
+            Snapshot reported;
+            try {
+                reported = objectMapper.readValue((String) snapshot.getValue(), Snapshot.class);
+            } catch (JsonProcessingException e) {
+                log.warn("Dropping unreadable host limit snapshot from {}", snapshot.getKey());
+                redis.opsForHash().delete(KEY, snapshot.getKey());
+                continue;
+            }
+            if (reported.reportedAt() == null || reported.reportedAt().isBefore(freshAfter)) {
+                redis.opsForHash().delete(KEY, snapshot.getKey());
+                continue;
+            }
+            for (HostLimitResponse host : reported.hosts()) {
+                host.setWorkerId((String) snapshot.getKey());
+                host.setReportedAt(reported.reportedAt());
+                hosts.add(host);
+            }
+        }
+        return hosts;
+    }
+}
@@ -0,0 +1,12 @@
+package com.learnerview.simplydone.repository;
+
+/**
+ * Where a job is sent, read for claimed jobs before they are leased.
+ */
+public interface JobDestination {
+    String getId();
+
+    String getExecutionType();
+
+    String getExecutionEndpoint();
+}
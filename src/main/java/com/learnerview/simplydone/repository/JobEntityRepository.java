@@ -3,29 +3,28 @@ package com.learnerview.simplydone.repository;
 import com.learnerview.simplydone.entity.JobEntity;
 import com.learnerview.simplydone.model.JobPriority;
 import com.learnerview.simplydone.model.JobStatus;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface JobEntityRepository extends JpaRepository<JobEntity, String> {
+public interface JobEntityRepository extends JpaRepository<JobEntity, String>, JobEntityRepositoryCustom {
     Page<JobEntity> findAllByOrderByCreatedAtDesc(Pageable pageable);
     Page<JobEntity> findByStatusOrderByCreatedAtDesc(JobStatus status, Pageable pageable);
     Page<JobEntity> findByJobTypeOrderByCreatedAtDesc(String jobType, Pageable pageable);
     Page<JobEntity> findByProducerOrderByCreatedAtDesc(String producer, Pageable pageable);
     List<JobEntity> findByStatus(JobStatus status);
     List<JobEntity> findByProducerAndStatus(String producer, JobStatus status);
-    List<JobEntity> findTop100ByStatusAndVisibleAtBeforeOrderByVisibleAtAsc(JobStatus status, Instant before);
-    List<JobEntity> findTop100ByStatusAndNextRunAtLessThanEqualOrderByNextRunAtAsc(JobStatus status, Instant now);
     long countByStatus(JobStatus status);
        long countByStatusAndPriority(JobStatus status, JobPriority priority);
     long countByProducerAndStatus(String producer, JobStatus status);
@@ -33,22 +32,52 @@ public interface JobEntityRepository extends JpaRepository<JobEntity, String> {
     List<JobEntity> findTop20ByProducerOrderByCreatedAtDesc(String producer);
     Optional<JobEntity> findByProducerAndIdempotencyKey(String producer, String idempotencyKey);
     Optional<JobEntity> findByProducerAndId(String producer, String id);
-       List<JobEntity> findTop100ByStatusAndPriorityAndNextRunAtLessThanEqualOrderByNextRunAtAsc(JobStatus status,
-                                                                                                                                                             JobPriority priority,
-                                                                                                                                                             Instant now);
 
+    @Query("SELECT j.id AS id, j.executionType AS executionType, j.executionEndpoint AS executionEndpoint " +
+           "FROM JobEntity j WHERE j.id IN :ids")
+    List<JobDestination> findDestinations(@Param("ids") Collection<String> ids);
+
+    /**
+     * Rows with ids in {@code [lo, hi)} whose run time has come, oldest first. Sweep partitions
+     * are id ranges, so the bound is a plain key range instead of a per-row expression.
+     */
+    @Query("SELECT j FROM JobEntity j WHERE j.status = :status AND j.nextRunAt <= :now " +
+           "AND j.id >= :lo AND j.id < :hi ORDER BY j.nextRunAt ASC")
+    List<JobEntity> findDueInPartition(@Param("status") JobStatus status, @Param("now") Instant now,
+                                       @Param("lo") String lo, @Param("hi") String hi, Pageable pageable);
+
+    /** Rows with ids in {@code [lo, hi)} whose lease ran out before {@code now}, oldest first. */
+    @Query("SELECT j FROM JobEntity j WHERE j.status = :status AND j.visibleAt < :now " +
+           "AND j.id >= :lo AND j.id < :hi ORDER BY j.visibleAt ASC")
+    List<JobEntity> findExpiredInPartition(@Param("status") JobStatus status, @Param("now") Instant now,
+                                           @Param("lo") String lo, @Param("hi") String hi, Pageable pageable);
+
+    /**
+     * Keyset page of queued jobs ordered by (nextRunAt, id), served by idx_status_next_run.
+     * Pass the last row of the previous page as the cursor.
+     */
+    @Query("SELECT j.id AS id, j.producer AS producer, j.priority AS priority, j.nextRunAt AS nextRunAt FROM JobEntity j " +
+           "WHERE j.status = :status AND j.nextRunAt <= :until " +
+           "AND (j.nextRunAt > :afterRunAt OR (j.nextRunAt = :afterRunAt AND j.id > :afterId)) " +
+           "ORDER BY j.nextRunAt ASC, j.id ASC")
+    List<QueuedJobRef> findQueuedPage(@Param("status") JobStatus status,
+                                      @Param("afterRunAt") Instant afterRunAt,
+                                      @Param("afterId") String afterId,
+                                      @Param("until") Instant until,
+                                      Pageable pageable);
+
+    /**
+     * Pushes out the leases this node still holds on the listed jobs. Jobs that finished, or were
+     * reaped and leased by another node, no longer match and are left alone.
+     */
     @Modifying
     @Transactional
-    @Query("UPDATE JobEntity j SET j.status = :runningStatus, j.leaseToken = :leaseToken, " +
-           "j.leaseOwner = :leaseOwner, j.visibleAt = :visibleUntil, j.startedAt = :now, j.updatedAt = :now " +
-           "WHERE j.id = :jobId AND j.status = :queuedStatus AND j.nextRunAt <= :now")
-    int claimForExecution(@Param("jobId") String jobId,
-                          @Param("leaseToken") String leaseToken,
-                          @Param("leaseOwner") String leaseOwner,
-                          @Param("visibleUntil") Instant visibleUntil,
-                          @Param("now") Instant now,
-                          @Param("queuedStatus") JobStatus queuedStatus,
-                          @Param("runningStatus") JobStatus runningStatus);
+    @Query("UPDATE JobEntity j SET j.visibleAt = :visibleUntil " +
+           "WHERE j.id IN :jobIds AND j.status = :status AND j.leaseOwner = :leaseOwner")
+    int extendLeases(@Param("jobIds") Collection<String> jobIds,
+                     @Param("leaseOwner") String leaseOwner,
+                     @Param("status") JobStatus status,
+                     @Param("visibleUntil") Instant visibleUntil);
 
     long countByStatusAndCompletedAtAfter(JobStatus status, Instant since);
 
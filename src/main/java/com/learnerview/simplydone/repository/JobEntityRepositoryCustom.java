@@ -0,0 +1,27 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.model.JobPriority;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/** Statements Spring Data cannot derive, implemented in {@link JobEntityRepositoryImpl}. */
+public interface JobEntityRepositoryCustom {
+
+    /**
+     * Moves every listed job that is still QUEUED and due to RUNNING under the given lease,
+     * and returns the leased rows in the same round trip. Jobs that were cancelled, already
+     * leased or rescheduled are skipped, so the result may be shorter than {@code jobIds}.
+     */
+    List<JobEntity> leaseForExecution(Collection<String> jobIds, String leaseToken, String leaseOwner,
+                                      Instant visibleUntil, Instant now);
+
+    /**
+     * Leases up to {@code limit} due QUEUED jobs of one lane, oldest first, and returns them.
+     * Used when Redis is unavailable; concurrent callers never receive the same row.
+     */
+    List<JobEntity> leaseDueForExecution(JobPriority priority, int limit, String leaseToken, String leaseOwner,
+                                         Instant visibleUntil, Instant now);
+}
@@ -0,0 +1,87 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.model.JobPriority;
+import com.learnerview.simplydone.model.JobStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Native statements for {@link JobEntityRepository}. Each lease is a single UPDATE that hands back
+ * the changed rows: {@code RETURNING} on PostgreSQL, a {@code FINAL TABLE} delta query on H2.
+ */
+public class JobEntityRepositoryImpl implements JobEntityRepositoryCustom {
+
+    private static final String LEASE_SET =
+            "UPDATE jobs SET status = :runningStatus, lease_token = :leaseToken, lease_owner = :leaseOwner, " +
+            "visible_at = :visibleUntil, started_at = :now, updated_at = :now ";
+
+    private static final String LEASE_UPDATE = LEASE_SET +
+            "WHERE id IN (:jobIds) AND status = :queuedStatus AND next_run_at <= :now";
+
+    /** Due rows of one lane, served by idx_jobs_queued_due. */
+    private static final String DUE_IN_LANE =
+            "SELECT id FROM jobs WHERE status = :queuedStatus AND priority = :priority AND next_run_at <= :now " +
+            "ORDER BY next_run_at LIMIT :limit";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DatabaseProduct database;
+
+    public JobEntityRepositoryImpl(DataSource dataSource) {
+        this.database = new DatabaseProduct(dataSource);
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<JobEntity> leaseForExecution(Collection<String> jobIds, String leaseToken, String leaseOwner,
+                                             Instant visibleUntil, Instant now) {
+        if (jobIds.isEmpty()) return List.of();
+
+        String sql = database.isH2()
+                ? "SELECT * FROM FINAL TABLE (" + LEASE_UPDATE + ")"
+                : LEASE_UPDATE + " RETURNING *";
+        return leaseQuery(sql, leaseToken, leaseOwner, visibleUntil, now)
+                .setParameter("jobIds", jobIds)
+                .getResultList();
+    }
+
+    /**
+     * On PostgreSQL, {@code FOR UPDATE SKIP LOCKED} gives racing workers disjoint batches.
+     * H2 has no SKIP LOCKED; the status check in the UPDATE still prevents a double lease.
+     */
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<JobEntity> leaseDueForExecution(JobPriority priority, int limit, String leaseToken,
+                                                String leaseOwner, Instant visibleUntil, Instant now) {
+        if (limit <= 0) return List.of();
+
+        String sql = database.isH2()
+                ? "SELECT * FROM FINAL TABLE (" + LEASE_SET + "WHERE status = :queuedStatus AND id IN (" + DUE_IN_LANE + "))"
+                : LEASE_SET + "WHERE id IN (" + DUE_IN_LANE + " FOR UPDATE SKIP LOCKED) RETURNING *";
+        return leaseQuery(sql, leaseToken, leaseOwner, visibleUntil, now)
+                .setParameter("priority", priority.name())
+                .setParameter("limit", limit)
+                .getResultList();
+    }
+
+    private Query leaseQuery(String sql, String leaseToken, String leaseOwner, Instant visibleUntil, Instant now) {
+        return entityManager.createNativeQuery(sql, JobEntity.class)
+                .setParameter("runningStatus", JobStatus.RUNNING.name())
+                .setParameter("queuedStatus", JobStatus.QUEUED.name())
+                .setParameter("leaseToken", leaseToken)
+                .setParameter("leaseOwner", leaseOwner)
+                .setParameter("visibleUntil", visibleUntil)
+                .setParameter("now", now);
+    }
+}
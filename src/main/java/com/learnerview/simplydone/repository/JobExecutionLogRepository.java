@@ -1,11 +1,26 @@
 package com.learnerview.simplydone.repository;
 
 import com.learnerview.simplydone.entity.JobExecutionLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
 import java.util.List;
 
 @Repository
 public interface JobExecutionLogRepository extends JpaRepository<JobExecutionLog, Long> {
     List<JobExecutionLog> findByJobIdOrderByAttemptAsc(String jobId);
+
+    /** Mean duration per producer and endpoint since {@code since}, busiest first. */
+    @Query("SELECT j.producer AS producer, j.executionType AS executionType, " +
+           "j.executionEndpoint AS executionEndpoint, j.jobType AS jobType, " +
+           "AVG(l.durationMs) AS averageMs, COUNT(l) AS samples " +
+           "FROM JobExecutionLog l, JobEntity j " +
+           "WHERE j.id = l.jobId AND l.executedAt > :since AND l.durationMs IS NOT NULL " +
+           "GROUP BY j.producer, j.executionType, j.executionEndpoint, j.jobType " +
+           "ORDER BY COUNT(l) DESC")
+    List<DurationSample> averageDurationsSince(@Param("since") Instant since, Pageable pageable);
 }
@@ -0,0 +1,8 @@
+package com.learnerview.simplydone.repository;
+
+/**
+ * What a lane looks like right after a promotion: how many jobs are ready to claim and the run
+ * time (epoch ms) of the earliest job still delayed, or null when none is.
+ */
+public record LanePromotion(long ready, Long nextDelayedAt) {
+}
@@ -0,0 +1,9 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.entity.ProducerWeightEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProducerWeightRepository extends JpaRepository<ProducerWeightEntity, String> {
+}
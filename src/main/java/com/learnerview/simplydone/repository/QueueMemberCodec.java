@@ -0,0 +1,56 @@
+package com.learnerview.simplydone.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes job IDs as Redis queue members: UUIDs as unpadded base64url of their 16 bytes, anything else unchanged.
+ * Claims return {@code producer}{@value #PRODUCER_SEPARATOR}{@code member}; the separator never occurs in a member.
+ */
+final class QueueMemberCodec {
+
+    static final String PRODUCER_SEPARATOR = "|";
+
+    private static final int ENCODED_UUID_LENGTH = 22;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private QueueMemberCodec() {
+    }
+
+    static String encode(String jobId) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(jobId);
+        } catch (IllegalArgumentException e) {
+            return jobId;
+        }
+        if (!uuid.toString().equals(jobId)) {
+            // Non-canonical spellings would not survive a round trip.
+            return jobId;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits());
+        return ENCODER.encodeToString(bytes.array());
+    }
+
+    static String encodeDelayed(String producer, String jobId) {
+        return (producer != null ? producer : "") + PRODUCER_SEPARATOR + encode(jobId);
+    }
+
+    static String decode(String member) {
+        if (member.length() != ENCODED_UUID_LENGTH) {
+            return member;
+        }
+        byte[] raw;
+        try {
+            raw = DECODER.decode(member);
+        } catch (IllegalArgumentException e) {
+            return member;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(raw);
+        return new UUID(bytes.getLong(), bytes.getLong()).toString();
+    }
+}
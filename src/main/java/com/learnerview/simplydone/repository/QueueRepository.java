@@ -2,19 +2,63 @@ package com.learnerview.simplydone.repository;
 
 import com.learnerview.simplydone.model.JobPriority;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
 
 public interface QueueRepository {
 
-    void enqueue(String jobId, JobPriority priority, long scheduledAtEpochMs);
+    /**
+     * Queues the job unless it is due beyond the scheduling horizon, in which case it is left
+     * in the database for the horizon loader. Returns whether the job was queued.
+     */
+    boolean enqueue(String jobId, String producer, JobPriority priority, long scheduledAtEpochMs);
 
-    Optional<String> claimNextReady(JobPriority priority);
+    /** Bulk form used by the horizon loader and the reconciler; skips the horizon check. */
+    void enqueueAll(List<QueuedJobRef> jobs);
 
-    void remove(String jobId, JobPriority priority);
+    /** Puts claimed jobs back in the lane's delayed stage until {@code retryAtEpochMs}, without a wake-up. */
+    void deferClaimed(List<ClaimedJob> jobs, JobPriority priority, long retryAtEpochMs);
 
+    /**
+     * Moves up to {@code maxCount} due jobs from the delayed stage to the ready stage and returns
+     * how many jobs are ready to claim in the lane and when its next delayed job falls due.
+     */
+    LanePromotion promoteDue(JobPriority priority, int maxCount);
+
+    /**
+     * Atomically removes and returns up to {@code maxCount} ready jobs, taking turns across the
+     * lane's producers in proportion to their weights and oldest first within each producer.
+     */
+    List<ClaimedJob> claimReady(JobPriority priority, int maxCount);
+
+    void remove(String jobId, String producer, JobPriority priority);
+
+    /** Delayed plus ready jobs in the lane. */
     long queueSize(JobPriority priority);
 
+    /** Up to {@code count} job IDs from the producer's ready list, starting at position {@code start}. */
+    List<String> readyJobIds(JobPriority priority, String producer, long start, int count);
+
+    /** The subset of {@code jobs} that has no entry in its lane's delayed stage. */
+    List<QueuedJobRef> filterNotDelayed(List<QueuedJobRef> jobs);
+
+    /**
+     * Moves producer prefixes off delayed members into the producer hash and deletes the lane keys
+     * used before the hash-tagged layout; the reconciliation that follows re-enqueues their jobs.
+     * Returns how many members were moved plus keys deleted.
+     */
+    long upgradeLegacyEntries();
+
     void clearQueue(JobPriority priority);
 
+    /** Jobs the producer gets per turn of a lane's round-robin. */
+    void setProducerWeight(String producer, int weight);
+
+    /** Puts the producer back on the default weight. */
+    void removeProducerWeight(String producer);
+
+    /** Overwrites every weight, e.g. from the database after Redis lost its data. */
+    void replaceProducerWeights(Map<String, Integer> weights);
+
     void clearAll();
 }
@@ -0,0 +1,18 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.model.JobPriority;
+
+import java.time.Instant;
+
+/**
+ * Slim projection of a queued job: just what is needed to place it in a Redis lane.
+ */
+public interface QueuedJobRef {
+    String getId();
+
+    String getProducer();
+
+    JobPriority getPriority();
+
+    Instant getNextRunAt();
+}
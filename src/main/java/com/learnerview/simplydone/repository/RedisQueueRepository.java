@@ -5,97 +5,422 @@ import com.learnerview.simplydone.model.JobPriority;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataAccessException;
-import org.springframework.data.redis.core.RedisOperations;
-import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
 
 /**
- * Redis-backed priority queue using score-ordered job IDs.
+ * Redis-backed priority queue. Each lane has a delayed ZSET scored by run time and one ready LIST per producer;
+ * claims take weighted turns between the producers in the lane's ring. Every key of a lane shares its hash tag.
  */
 @Repository
 @Slf4j
 public class RedisQueueRepository implements QueueRepository {
 
+    private static final int DEFAULT_WEIGHT = 1;
+
+    /** Shared by the scripts below; {@code take_producer} also reads members still carrying a producer prefix. */
+    private static final String LUA_HELPERS =
+            "local function sub_queue(base, p) if p == '' then return base end return base .. ':' .. p end " +
+            "local function take_producer(producers, m) " +
+            "  local p, id = string.match(m, '^(.*)|([^|]*)$') " +
+            "  if p then return p, id end " +
+            "  p = redis.call('HGET', producers, m) " +
+            "  if p then redis.call('HDEL', producers, m) end " +
+            "  return p or '', m " +
+            "end " +
+            "local function push_ready(base, ring, members, count, p, id) " +
+            "  redis.call('RPUSH', sub_queue(base, p), id) " +
+            "  redis.call('INCR', count) " +
+            "  if redis.call('SADD', members, p) == 1 then redis.call('RPUSH', ring, p) end " +
+            "end " +
+            "local function ready_count(count) return math.max(tonumber(redis.call('GET', count) or '0'), 0) end ";
+
+    /**
+     * KEYS[1] = delayed ZSET, KEYS[2] = ring LIST, KEYS[3] = ring SET, KEYS[4] = ready counter,
+     * KEYS[5] = producer HASH. ARGV[1] = score, ARGV[2] = member, ARGV[3] = now,
+     * ARGV[4] = wake-up channel ('' to skip), ARGV[5] = lane, ARGV[6] = ready key base, ARGV[7] = producer.
+     */
+    private static final RedisScript<Long> ENQUEUE_SCRIPT = new DefaultRedisScript<>(LUA_HELPERS +
+            "if tonumber(ARGV[1]) <= tonumber(ARGV[3]) then " +
+            "  push_ready(ARGV[6], KEYS[2], KEYS[3], KEYS[4], ARGV[7], ARGV[2]) " +
+            "else " +
+            "  if ARGV[7] ~= '' then redis.call('HSET', KEYS[5], ARGV[2], ARGV[7]) end " +
+            "  redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) " +
+            "end " +
+            "if ARGV[4] ~= '' then redis.call('PUBLISH', ARGV[4], ARGV[5]) end " +
+            "return 1",
+            Long.class);
+
+    /**
+     * KEYS[1] = delayed ZSET, KEYS[2] = ring LIST, KEYS[3] = ring SET, KEYS[4] = ready counter,
+     * KEYS[5] = producer HASH. ARGV[1] = now, ARGV[2] = max members to move, ARGV[3] = ready key base.
+     * Returns the ready count and the score of the delayed set's new head, -1 when it is empty.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Long>> PROMOTE_DUE_SCRIPT = new DefaultRedisScript<>(LUA_HELPERS +
+            "local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2])) " +
+            "if #due > 0 then " +
+            "  redis.call('ZREM', KEYS[1], unpack(due)) " +
+            "  for _, m in ipairs(due) do " +
+            "    local p, id = take_producer(KEYS[5], m) " +
+            "    push_ready(ARGV[3], KEYS[2], KEYS[3], KEYS[4], p, id) " +
+            "  end " +
+            "end " +
+            "local head = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES') " +
+            "return {ready_count(KEYS[4]), tonumber(head[2] or '-1')}",
+            (Class) List.class);
+
+    /**
+     * KEYS[1] = ring LIST, KEYS[2] = ring SET, KEYS[3] = credit HASH, KEYS[4] = weight HASH,
+     * KEYS[5] = ready counter. ARGV[1] = max jobs to claim, ARGV[2] = ready key base, ARGV[3] = default weight.
+     * Returns "producer|member" entries. A producer whose sub-queue is empty leaves the ring.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<String>> CLAIM_READY_SCRIPT = new DefaultRedisScript<>(LUA_HELPERS +
+            "local n = tonumber(ARGV[1]) " +
+            "local out = {} " +
+            "local visits = redis.call('LLEN', KEYS[1]) + n " +
+            "while #out < n and visits > 0 do " +
+            "  visits = visits - 1 " +
+            "  local p = redis.call('LINDEX', KEYS[1], 0) " +
+            "  if not p then break end " +
+            "  local q = sub_queue(ARGV[2], p) " +
+            "  local credit = tonumber(redis.call('HGET', KEYS[3], p) or redis.call('HGET', KEYS[4], p) or ARGV[3]) " +
+            "  local items = redis.call('LRANGE', q, 0, math.max(math.min(credit, n - #out), 1) - 1) " +
+            "  if #items > 0 then redis.call('LTRIM', q, #items, -1) end " +
+            "  for _, id in ipairs(items) do out[#out + 1] = p .. '|' .. id end " +
+            "  credit = credit - #items " +
+            "  if redis.call('LLEN', q) == 0 then " +
+            "    redis.call('LPOP', KEYS[1]) " +
+            "    redis.call('SREM', KEYS[2], p) " +
+            "    redis.call('HDEL', KEYS[3], p) " +
+            "  elseif credit <= 0 then " +
+            "    redis.call('RPUSH', KEYS[1], redis.call('LPOP', KEYS[1])) " +
+            "    redis.call('HDEL', KEYS[3], p) " +
+            "  else " +
+            "    redis.call('HSET', KEYS[3], p, credit) " +
+            "  end " +
+            "end " +
+            "if #out > 0 then redis.call('DECRBY', KEYS[5], #out) end " +
+            "return out",
+            (Class) List.class);
+
+    /**
+     * KEYS[1] = delayed ZSET, KEYS[2] = the producer's ready LIST, KEYS[3] = the lane's base ready LIST,
+     * KEYS[4] = ready counter, KEYS[5] = producer HASH. ARGV = every spelling of the member to drop.
+     * An emptied sub-queue leaves the ring on the next claim.
+     */
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "local delayed = redis.call('ZREM', KEYS[1], unpack(ARGV)) " +
+            "redis.call('HDEL', KEYS[5], unpack(ARGV)) " +
+            "local ready = 0 " +
+            "for _, member in ipairs(ARGV) do " +
+            "  ready = ready + redis.call('LREM', KEYS[2], 0, member) " +
+            "  if KEYS[3] ~= KEYS[2] then ready = ready + redis.call('LREM', KEYS[3], 0, member) end " +
+            "end " +
+            "if ready > 0 then redis.call('DECRBY', KEYS[4], ready) end " +
+            "return delayed + ready",
+            Long.class);
+
+    /**
+     * KEYS[1] = delayed ZSET, KEYS[2] = producer HASH. ARGV[1] = ZSCAN cursor, ARGV[2] = ZSCAN count.
+     * Moves the producer of prefixed members into the hash; returns the next cursor and how many moved.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<String>> UNPREFIX_SCRIPT = new DefaultRedisScript<>(
+            "local scan = redis.call('ZSCAN', KEYS[1], ARGV[1], 'MATCH', '*|*', 'COUNT', tonumber(ARGV[2])) " +
+            "local found = scan[2] " +
+            "local moved = 0 " +
+            "for i = 1, #found, 2 do " +
+            "  local p, id = string.match(found[i], '^(.*)|([^|]*)$') " +
+            "  if p then " +
+            "    redis.call('ZREM', KEYS[1], found[i]) " +
+            "    redis.call('ZADD', KEYS[1], found[i + 1], id) " +
+            "    if p ~= '' then redis.call('HSET', KEYS[2], id, p) end " +
+            "    moved = moved + 1 " +
+            "  end " +
+            "end " +
+            "return {scan[1], tostring(moved)}",
+            (Class) List.class);
+
+    private static final int UNPREFIX_BATCH = 500;
+
+    /** KEYS[1] = delayed ZSET, KEYS[2] = ready counter. */
+    private static final RedisScript<Long> SIZE_SCRIPT = new DefaultRedisScript<>(LUA_HELPERS +
+            "return redis.call('ZCARD', KEYS[1]) + ready_count(KEYS[2])",
+            Long.class);
+
     private final StringRedisTemplate redis;
     private final String queuePrefix;
+    private final String wakeupChannel;
+    private final long horizonMs;
 
     public RedisQueueRepository(StringRedisTemplate redis, SchedulerProperties props) {
         this.redis = redis;
         this.queuePrefix = props.getScheduler().getQueuePrefix();
+        this.horizonMs = props.getQueue().getHorizonSeconds() * 1000L;
+        this.wakeupChannel = props.getScheduler().getWakeup().isEnabled()
+                ? props.getScheduler().getWakeup().getChannel() : "";
     }
 
+    /**
+     * Adds the job to its producer's ready list when it is already due, otherwise to the delayed set.
+     * With wake-up enabled the same script call publishes the notification for idle workers.
+     */
     @Retry(name = "redisQueue")
     @CircuitBreaker(name = "redisQueue")
-    public void enqueue(String jobId, JobPriority priority, long scheduledAtEpochMs) {
-        redis.opsForZSet().add(queueKey(priority), jobId, scheduledAtEpochMs);
+    public boolean enqueue(String jobId, String producer, JobPriority priority, long scheduledAtEpochMs) {
+        long now = System.currentTimeMillis();
+        if (scheduledAtEpochMs > now + horizonMs) {
+            log.debug("Job {} is beyond the scheduling horizon, leaving it to the horizon loader", jobId);
+            return false;
+        }
+        redis.execute(ENQUEUE_SCRIPT,
+                List.of(delayedKey(priority), ringKey(priority), ringMembersKey(priority), readyCountKey(priority),
+                        producerKey(priority)),
+                String.valueOf(scheduledAtEpochMs), QueueMemberCodec.encode(jobId),
+                String.valueOf(now), wakeupChannel, priority.name(), readyKey(priority), producer != null ? producer : "");
+        return true;
     }
 
     /**
-     * Claims the next ready job with optimistic locking.
+     * Pipelines producer HSETs and ZADDs into the delayed stages; due members reach the ready lists on
+     * the next promotion. The producer goes first, so a promotion never sees a member without it.
+     * One wake-up per batch lets sleeping dispatchers pick up the new earliest due time.
      */
-    @SuppressWarnings("unchecked")
     @Retry(name = "redisQueue")
     @CircuitBreaker(name = "redisQueue")
-    public Optional<String> claimNextReady(JobPriority priority) {
-        String key = queueKey(priority);
-        long now = System.currentTimeMillis();
-
-        return redis.execute(new SessionCallback<Optional<String>>() {
-            @Override
-            public Optional<String> execute(RedisOperations ops) throws DataAccessException {
-                ops.watch(key);
-                Set<ZSetOperations.TypedTuple<String>> results =
-                        ops.opsForZSet().rangeByScoreWithScores(key, 0, now, 0, 1);
-
-                if (results == null || results.isEmpty()) {
-                    ops.unwatch();
-                    return Optional.empty();
-                }
-
-                String jobId = results.iterator().next().getValue();
-                ops.multi();
-                ops.opsForZSet().remove(key, jobId);
-                List<Object> execResult = ops.exec();
-
-                if (execResult == null || execResult.isEmpty()) {
-                    return Optional.empty();
+    public void enqueueAll(List<QueuedJobRef> jobs) {
+        if (jobs.isEmpty()) return;
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (QueuedJobRef job : jobs) {
+                byte[] member = QueueMemberCodec.encode(job.getId()).getBytes(StandardCharsets.UTF_8);
+                if (job.getProducer() != null && !job.getProducer().isEmpty()) {
+                    connection.hashCommands().hSet(producerKey(job.getPriority()).getBytes(StandardCharsets.UTF_8),
+                            member, job.getProducer().getBytes(StandardCharsets.UTF_8));
                 }
-                return Optional.of(jobId);
+                connection.zSetCommands().zAdd(delayedKey(job.getPriority()).getBytes(StandardCharsets.UTF_8),
+                        job.getNextRunAt().toEpochMilli(), member);
+            }
+            if (!wakeupChannel.isEmpty()) {
+                connection.publish(wakeupChannel.getBytes(StandardCharsets.UTF_8),
+                        jobs.get(0).getPriority().name().getBytes(StandardCharsets.UTF_8));
             }
+            return null;
         });
     }
 
+    /** One HSET and one ZADD for the whole batch; the lane's members share one key each. */
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public void deferClaimed(List<ClaimedJob> jobs, JobPriority priority, long retryAtEpochMs) {
+        if (jobs.isEmpty()) return;
+        Map<String, String> producers = new HashMap<>();
+        Set<ZSetOperations.TypedTuple<String>> members = new HashSet<>();
+        for (ClaimedJob job : jobs) {
+            String member = QueueMemberCodec.encode(job.id());
+            if (job.producer() != null && !job.producer().isEmpty()) producers.put(member, job.producer());
+            members.add(ZSetOperations.TypedTuple.of(member, (double) retryAtEpochMs));
+        }
+        if (!producers.isEmpty()) redis.opsForHash().putAll(producerKey(priority), producers);
+        redis.opsForZSet().add(delayedKey(priority), members);
+    }
+
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public LanePromotion promoteDue(JobPriority priority, int maxCount) {
+        List<Long> result = redis.execute(PROMOTE_DUE_SCRIPT,
+                List.of(delayedKey(priority), ringKey(priority), ringMembersKey(priority), readyCountKey(priority),
+                        producerKey(priority)),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(Math.max(maxCount, 1)), readyKey(priority));
+        if (result == null || result.size() < 2) return new LanePromotion(0, null);
+        return new LanePromotion(result.get(0), result.get(1) >= 0 ? result.get(1) : null);
+    }
+
+    /**
+     * Pops up to {@code maxCount} jobs from the producers at the head of the ring with a server-side
+     * script, so concurrent workers never abort each other and each claim costs a single EVALSHA round trip.
+     */
     @Retry(name = "redisQueue")
     @CircuitBreaker(name = "redisQueue")
-    public void remove(String jobId, JobPriority priority) {
-        redis.opsForZSet().remove(queueKey(priority), jobId);
+    public List<ClaimedJob> claimReady(JobPriority priority, int maxCount) {
+        if (maxCount <= 0) return List.of();
+        List<String> claimed = redis.execute(CLAIM_READY_SCRIPT,
+                List.of(ringKey(priority), ringMembersKey(priority), creditKey(priority), weightKey(priority),
+                        readyCountKey(priority)),
+                String.valueOf(maxCount), readyKey(priority), String.valueOf(DEFAULT_WEIGHT));
+        if (claimed == null) return List.of();
+        return claimed.stream()
+                .map(entry -> {
+                    int split = entry.lastIndexOf(QueueMemberCodec.PRODUCER_SEPARATOR);
+                    return new ClaimedJob(QueueMemberCodec.decode(entry.substring(split + 1)),
+                            entry.substring(0, split));
+                })
+                .toList();
+    }
+
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public void remove(String jobId, String producer, JobPriority priority) {
+        // The prefixed and raw IDs cover members queued before the producer hash and the compact encoding.
+        redis.execute(REMOVE_SCRIPT, List.of(delayedKey(priority), readyKey(priority, producer), readyKey(priority),
+                        readyCountKey(priority), producerKey(priority)),
+                QueueMemberCodec.encodeDelayed(producer, jobId), QueueMemberCodec.encode(jobId), jobId);
     }
 
     @Retry(name = "redisQueue")
     @CircuitBreaker(name = "redisQueue")
     public long queueSize(JobPriority priority) {
-        Long size = redis.opsForZSet().zCard(queueKey(priority));
+        Long size = redis.execute(SIZE_SCRIPT, List.of(delayedKey(priority), readyCountKey(priority)));
         return size != null ? size : 0;
     }
 
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public List<String> readyJobIds(JobPriority priority, String producer, long start, int count) {
+        if (count <= 0) return List.of();
+        List<String> members = redis.opsForList().range(readyKey(priority, producer), start, start + count - 1);
+        return members != null ? members.stream().map(QueueMemberCodec::decode).toList() : List.of();
+    }
+
+    /** Pipelined ZSCOREs, one per job. */
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public List<QueuedJobRef> filterNotDelayed(List<QueuedJobRef> jobs) {
+        if (jobs.isEmpty()) return List.of();
+        List<Object> scores = redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (QueuedJobRef job : jobs) {
+                connection.zSetCommands().zScore(delayedKey(job.getPriority()).getBytes(StandardCharsets.UTF_8),
+                        QueueMemberCodec.encode(job.getId()).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        List<QueuedJobRef> missing = new ArrayList<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            if (scores.get(i) == null) {
+                missing.add(jobs.get(i));
+            }
+        }
+        return missing;
+    }
+
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public long upgradeLegacyEntries() {
+        long upgraded = 0;
+        for (JobPriority priority : JobPriority.values()) {
+            String cursor = "0";
+            do {
+                List<String> result = redis.execute(UNPREFIX_SCRIPT, List.of(delayedKey(priority), producerKey(priority)),
+                        cursor, String.valueOf(UNPREFIX_BATCH));
+                if (result == null || result.size() < 2) break;
+                cursor = result.get(0);
+                upgraded += Long.parseLong(result.get(1));
+            } while (!"0".equals(cursor));
+            String legacyKey = queuePrefix + ":" + priority.name().toLowerCase();
+            Long deleted = redis.delete(List.of(legacyKey, legacyKey + ":ready"));
+            upgraded += deleted != null ? deleted : 0;
+        }
+        upgraded += Boolean.TRUE.equals(redis.delete(queuePrefix + ":producer-weights")) ? 1 : 0;
+        return upgraded;
+    }
+
     @Retry(name = "redisQueue")
     @CircuitBreaker(name = "redisQueue")
     public void clearQueue(JobPriority priority) {
-        redis.delete(queueKey(priority));
+        List<String> keys = new ArrayList<>(List.of(delayedKey(priority), readyKey(priority), readyCountKey(priority),
+                ringKey(priority), ringMembersKey(priority), creditKey(priority), producerKey(priority)));
+        activeProducers(priority).forEach(producer -> keys.add(readyKey(priority, producer)));
+        redis.delete(keys);
     }
 
     public void clearAll() {
         for (JobPriority p : JobPriority.values()) clearQueue(p);
     }
 
-    private String queueKey(JobPriority priority) {
-        return queuePrefix + ":" + priority.name().toLowerCase();
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public void setProducerWeight(String producer, int weight) {
+        for (JobPriority priority : JobPriority.values()) {
+            redis.opsForHash().put(weightKey(priority), producer, String.valueOf(weight));
+        }
+    }
+
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public void removeProducerWeight(String producer) {
+        for (JobPriority priority : JobPriority.values()) {
+            redis.opsForHash().delete(weightKey(priority), producer);
+        }
+    }
+
+    @Retry(name = "redisQueue")
+    @CircuitBreaker(name = "redisQueue")
+    public void replaceProducerWeights(Map<String, Integer> weights) {
+        Map<String, String> values = new HashMap<>();
+        weights.forEach((producer, weight) -> values.put(producer, String.valueOf(weight)));
+        for (JobPriority priority : JobPriority.values()) {
+            redis.delete(weightKey(priority));
+            if (!values.isEmpty()) {
+                redis.opsForHash().putAll(weightKey(priority), values);
+            }
+        }
+    }
+
+    private List<String> activeProducers(JobPriority priority) {
+        List<String> producers = redis.opsForList().range(ringKey(priority), 0, -1);
+        return producers != null ? producers : List.of();
+    }
+
+    /** The lane's hash tag on its own; every other key of the lane starts with it. */
+    private String delayedKey(JobPriority priority) {
+        return "{" + queuePrefix + ":" + priority.name().toLowerCase() + "}";
+    }
+
+    /** The empty producer's ready list; the base of every producer sub-queue key. */
+    private String readyKey(JobPriority priority) {
+        return delayedKey(priority) + ":ready";
+    }
+
+    private String readyCountKey(JobPriority priority) {
+        return delayedKey(priority) + ":ready-count";
+    }
+
+    /** Must match {@code sub_queue} in the scripts. */
+    private String readyKey(JobPriority priority, String producer) {
+        return producer == null || producer.isEmpty() ? readyKey(priority) : readyKey(priority) + ":" + producer;
+    }
+
+    private String ringKey(JobPriority priority) {
+        return delayedKey(priority) + ":ring";
+    }
+
+    private String ringMembersKey(JobPriority priority) {
+        return delayedKey(priority) + ":ring:members";
+    }
+
+    /** Producer of each delayed member, keyed by the member. */
+    private String producerKey(JobPriority priority) {
+        return delayedKey(priority) + ":producers";
+    }
+
+    private String creditKey(JobPriority priority) {
+        return delayedKey(priority) + ":credits";
+    }
+
+    private String weightKey(JobPriority priority) {
+        return delayedKey(priority) + ":producer-weights";
     }
 }
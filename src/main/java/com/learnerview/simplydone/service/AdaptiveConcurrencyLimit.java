@@ -0,0 +1,134 @@
+package com.learnerview.simplydone.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD concurrency limit for one destination host: grows while its RTT stays near the no-load RTT,
+ * and backs off at most once per round trip on an error or a latency rise.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double RTT_SMOOTHING = 0.2;
+    /** Lets the no-load baseline follow a host that has become permanently slower, once the limit has shrunk to it. */
+    private static final double BASELINE_DRIFT = 0.01;
+    /** Rises below this are scheduler and GC noise on a fast host, not requests queueing there. */
+    private static final double MIN_LATENCY_RISE_MS = 10.0;
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double limit;
+    private int inFlight;
+    private double smoothedRttMs = Double.NaN;
+    private double noLoadRttMs = Double.NaN;
+    private long lastBackoffNanos;
+
+    public AdaptiveConcurrencyLimit(boolean adaptive, int initialLimit, int minLimit, int maxLimit,
+                                    double backoffRatio, double latencyTolerance) {
+        this(adaptive, initialLimit, minLimit, maxLimit, backoffRatio, latencyTolerance, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimit(boolean adaptive, int initialLimit, int minLimit, int maxLimit,
+                             double backoffRatio, double latencyTolerance, LongSupplier nanoClock) {
+        this.adaptive = adaptive;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.nanoClock = nanoClock;
+        this.lastBackoffNanos = nanoClock.getAsLong();
+    }
+
+    /** Takes a call slot, returning the number of calls already in flight, or -1 when the limit is reached. */
+    public int tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) return -1;
+            return inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a call slot and feeds the call into the limit. {@code inFlightAtStart} is what
+     * {@link #tryAcquire} returned; {@code dropped} means the host failed or shed the call.
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        double rttMs = rttNanos / 1_000_000.0;
+        lock.lock();
+        try {
+            inFlight--;
+            smoothedRttMs = Double.isNaN(smoothedRttMs) ? rttMs : smoothedRttMs + RTT_SMOOTHING * (rttMs - smoothedRttMs);
+            // Timeouts and refused connections say nothing about the healthy round trip, and only a
+            // call that ran alone may raise the baseline, so sustained overload never becomes normal.
+            if (!dropped) {
+                if (Double.isNaN(noLoadRttMs) || rttMs < noLoadRttMs) {
+                    noLoadRttMs = rttMs;
+                } else if (inFlightAtStart == 0) {
+                    noLoadRttMs += BASELINE_DRIFT * (rttMs - noLoadRttMs);
+                }
+            }
+            if (!adaptive) return;
+
+            boolean congested = dropped || (!Double.isNaN(noLoadRttMs)
+                    && smoothedRttMs > Math.max(noLoadRttMs * latencyTolerance, noLoadRttMs + MIN_LATENCY_RISE_MS));
+            if (congested) {
+                long now = nanoClock.getAsLong();
+                if (now - lastBackoffNanos >= smoothedRttMs * 1_000_000) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastBackoffNanos = now;
+                }
+            } else if ((inFlightAtStart + 1) * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Exponentially smoothed RTT in milliseconds, NaN before the first call. */
+    public double smoothedRttMs() {
+        lock.lock();
+        try {
+            return smoothedRttMs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Best recent RTT of a successful call in milliseconds, NaN before the first one. */
+    public double noLoadRttMs() {
+        lock.lock();
+        try {
+            return noLoadRttMs;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
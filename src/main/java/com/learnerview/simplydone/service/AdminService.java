@@ -10,6 +10,8 @@ import org.springframework.data.domain.Pageable;
 import java.util.List;
 import com.learnerview.simplydone.dto.ApiKeyRequest;
 import com.learnerview.simplydone.dto.ApiKeyResponse;
+import com.learnerview.simplydone.dto.HostLimitResponse;
+import com.learnerview.simplydone.dto.ProducerWeightResponse;
 
 public interface AdminService {
 
@@ -17,6 +19,9 @@ public interface AdminService {
 
     QueueStatsResponse getStats(String producer);
 
+    /** Per-host concurrency limits and RTT estimates reported by every live worker. */
+    List<HostLimitResponse> getHostLimits();
+
     Page<JobResponse> listJobs(Pageable pageable);
 
     Page<JobResponse> listJobsByStatus(JobStatus status, Pageable pageable);
@@ -35,6 +40,13 @@ public interface AdminService {
 
     void revokeKey(String keyId);
 
+    /** Producers with a non-default fair-share weight; everyone else gets 1. */
+    List<ProducerWeightResponse> listProducerWeights();
+
+    ProducerWeightResponse setProducerWeight(String producer, int weight);
+
+    void resetProducerWeight(String producer);
+
     EmailVerificationSettingsResponse getEmailVerificationSettings();
 
     EmailVerificationSettingsResponse setEmailVerificationEnabled(boolean enabled);
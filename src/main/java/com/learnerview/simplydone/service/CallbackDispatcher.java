@@ -0,0 +1,235 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.CallbackDeliveryEntity;
+import com.learnerview.simplydone.model.CallbackStatus;
+import com.learnerview.simplydone.repository.CallbackDeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers completion callbacks from the callback_deliveries outbox, one signed batch per producer and URL,
+ * with exponential backoff until max-attempts. Delivery is at least once.
+ */
+@Service
+@Profile("worker")
+@Slf4j
+public class CallbackDispatcher {
+
+    /** A callback response is only read this far; a longer body drops the connection. */
+    private static final int MAX_RESPONSE_BYTES = 64 * 1024;
+
+    private final CallbackDeliveryRepository callbackRepo;
+    private final CloseableHttpClient httpClient;
+    private final WebhookSigner signer;
+    private final SchedulerProperties.Callback settings;
+    private final ExecutorService deliveryPool;
+    private final AtomicInteger busyThreads = new AtomicInteger();
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+
+    private record Batch(String producer, String url, String leaseToken, List<CallbackDeliveryEntity> deliveries) {
+    }
+
+    public CallbackDispatcher(CallbackDeliveryRepository callbackRepo, CloseableHttpClient webhookHttpClient,
+                              WebhookSigner signer, MeterRegistry meterRegistry, SchedulerProperties props) {
+        this.callbackRepo = callbackRepo;
+        this.httpClient = webhookHttpClient;
+        this.signer = signer;
+        this.settings = props.getCallback();
+        // Only idle threads lease work, so the queue never holds more than one poll's batches.
+        this.deliveryPool = new ThreadPoolExecutor(settings.getThreads(), settings.getThreads(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("callback-delivery-"));
+        this.delivered = outcomeCounter(meterRegistry, "delivered");
+        this.retried = outcomeCounter(meterRegistry, "retried");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("simplydone.callbacks")
+                .tag("outcome", outcome)
+                .description("Callback deliveries by outcome")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${simplydone.callback.poll-interval-ms:1000}")
+    public void dispatchDue() {
+        if (!settings.isEnabled()) return;
+        int idle = settings.getThreads() - busyThreads.get();
+        if (idle <= 0) return;
+
+        Instant now = Instant.now();
+        String leaseToken = UUID.randomUUID().toString();
+        List<CallbackDeliveryEntity> due = callbackRepo.leaseDue(idle * settings.getBatchSize(), leaseToken,
+                now.plusSeconds(settings.getLeaseSeconds()), now);
+        List<Batch> batches = batches(due, leaseToken);
+        if (batches.size() > idle) {
+            List<Long> unsent = batches.subList(idle, batches.size()).stream()
+                    .flatMap(batch -> batch.deliveries().stream())
+                    .map(CallbackDeliveryEntity::getId)
+                    .toList();
+            callbackRepo.release(unsent, leaseToken, now);
+            batches = batches.subList(0, idle);
+        }
+        for (Batch batch : batches) {
+            busyThreads.incrementAndGet();
+            deliveryPool.execute(() -> {
+                try {
+                    deliver(batch);
+                } finally {
+                    busyThreads.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${simplydone.callback.purge-interval-ms:3600000}")
+    public void purgeFinished() {
+        int purged = callbackRepo.deleteFinishedBefore(CallbackStatus.PENDING,
+                Instant.now().minus(settings.getRetentionHours(), ChronoUnit.HOURS));
+        if (purged > 0) {
+            log.info("Purged {} finished callback deliveries", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Leased rows that were not sent come back once their lease runs out.
+        deliveryPool.shutdownNow();
+    }
+
+    private List<Batch> batches(List<CallbackDeliveryEntity> due, String leaseToken) {
+        Map<List<String>, List<CallbackDeliveryEntity>> byTarget = new LinkedHashMap<>();
+        for (CallbackDeliveryEntity delivery : due) {
+            byTarget.computeIfAbsent(List.of(delivery.getProducer(), delivery.getCallbackUrl()),
+                    target -> new ArrayList<>()).add(delivery);
+        }
+        List<Batch> batches = new ArrayList<>();
+        byTarget.forEach((target, deliveries) -> {
+            for (int from = 0; from < deliveries.size(); from += settings.getBatchSize()) {
+                int to = Math.min(from + settings.getBatchSize(), deliveries.size());
+                batches.add(new Batch(target.get(0), target.get(1), leaseToken, deliveries.subList(from, to)));
+            }
+        });
+        return batches;
+    }
+
+    private void deliver(Batch batch) {
+        String error;
+        try {
+            int status = post(batch);
+            if (status >= 200 && status < 300) {
+                markDelivered(batch);
+                return;
+            }
+            error = "HTTP " + status;
+        } catch (IOException | RuntimeException e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        reschedule(batch, error);
+    }
+
+    private int post(Batch batch) throws IOException {
+        StringBuilder json = new StringBuilder("{\"deliveries\":[");
+        for (int i = 0; i < batch.deliveries().size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(batch.deliveries().get(i).getPayload());
+        }
+        byte[] body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpPost request = new HttpPost(batch.url());
+        request.setConfig(WebhookRequests.timeoutConfig(Timeout.ofSeconds(settings.getTimeoutSeconds())));
+        request.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        String signature = signer.sign(batch.producer(), body);
+        if (signature != null) {
+            request.setHeader(WebhookRequests.SIGNATURE_HEADER, signature);
+        }
+        return httpClient.execute(request, response -> discardBody(request, response));
+    }
+
+    /** Reads a short body to the end so the connection is reused, and drops it otherwise. */
+    private static int discardBody(HttpPost request, ClassicHttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity != null) {
+            InputStream in = entity.getContent();
+            byte[] chunk = new byte[8192];
+            long read = 0;
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                read += n;
+                if (read > MAX_RESPONSE_BYTES) {
+                    request.cancel();
+                    break;
+                }
+            }
+        }
+        return response.getCode();
+    }
+
+    private void markDelivered(Batch batch) {
+        List<Long> ids = batch.deliveries().stream().map(CallbackDeliveryEntity::getId).toList();
+        int updated = callbackRepo.markDelivered(ids, batch.leaseToken(), CallbackStatus.DELIVERED, Instant.now());
+        delivered.increment(updated);
+        if (updated < ids.size()) {
+            log.warn("Lease ran out on {} of {} callbacks delivered to {}; they will be sent again",
+                    ids.size() - updated, ids.size(), batch.url());
+        }
+    }
+
+    private void reschedule(Batch batch, String error) {
+        String lastError = error.length() > 1000 ? error.substring(0, 1000) : error;
+        Instant now = Instant.now();
+        for (CallbackDeliveryEntity delivery : batch.deliveries()) {
+            boolean giveUp = delivery.getAttempts() >= settings.getMaxAttempts();
+            Instant nextAttemptAt = giveUp ? now : now.plusSeconds(backoffSeconds(delivery.getAttempts()));
+            if (callbackRepo.recordFailure(delivery.getId(), batch.leaseToken(),
+                    giveUp ? CallbackStatus.FAILED : CallbackStatus.PENDING, nextAttemptAt, lastError) == 0) {
+                continue;
+            }
+            if (giveUp) {
+                failed.increment();
+                log.warn("Giving up on callback for job {} to {} after {} attempts: {}",
+                        delivery.getJobId(), batch.url(), delivery.getAttempts(), lastError);
+            } else {
+                retried.increment();
+            }
+        }
+        log.debug("Callback batch of {} to {} failed: {}", batch.deliveries().size(), batch.url(), lastError);
+    }
+
+    private long backoffSeconds(int attempts) {
+        long delay = settings.getInitialBackoffSeconds() << Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(delay, settings.getMaxBackoffSeconds());
+    }
+}
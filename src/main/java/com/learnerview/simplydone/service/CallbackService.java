@@ -0,0 +1,13 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.entity.JobEntity;
+
+public interface CallbackService {
+
+    /**
+     * Saves a job that just reached a terminal status and, in the same transaction, its
+     * completion callback if it has a callbackUrl. Either both are written or neither is, and
+     * failures are thrown to the caller. Delivery happens later on a worker.
+     */
+    void saveCompleted(JobEntity job);
+}
@@ -0,0 +1,122 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.repository.ClusterLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named, expiring leases that let one worker own a piece of background work, kept in Redis or in
+ * {@code cluster_leases} by mode. They narrow duplicate work, not rule it out.
+ */
+@Service
+@Profile("worker")
+@Slf4j
+public class ClusterLeaseService {
+
+    private static final String KEY_PREFIX = "simplydone:lease:";
+
+    /** KEYS[1] = lease key. ARGV[1] = owner, ARGV[2] = lease ms. Returns 1 when the caller holds the lease. */
+    private static final RedisScript<Long> HOLD_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('GET', KEYS[1]) " +
+            "if owner == ARGV[1] then redis.call('PEXPIRE', KEYS[1], ARGV[2]) return 1 end " +
+            "if not owner then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end " +
+            "return 0",
+            Long.class);
+
+    /** KEYS[1] = lease key. ARGV[1] = owner. */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ClusterLeaseRepository leaseRepo;
+    private final RedisModeController redisMode;
+    private final String owner;
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+
+    public ClusterLeaseService(StringRedisTemplate redis, ClusterLeaseRepository leaseRepo,
+                               RedisModeController redisMode, SchedulerEngine schedulerEngine) {
+        this.redis = redis;
+        this.leaseRepo = leaseRepo;
+        this.redisMode = redisMode;
+        this.owner = schedulerEngine.workerId();
+    }
+
+    /**
+     * Takes the lease, or renews it when this worker already holds it, for {@code leaseMs}.
+     * Returns false while another worker holds it; never throws.
+     */
+    public boolean tryHold(String name, long leaseMs) {
+        boolean holding = false;
+        try {
+            holding = redisMode.isRedisAvailable() ? holdInRedis(name, leaseMs) : holdInDatabase(name, leaseMs);
+        } catch (RuntimeException e) {
+            log.warn("Could not renew cluster lease {}: {}", name, e.getMessage());
+        }
+        if (holding && held.add(name)) {
+            log.info("Worker {} now holds cluster lease {}", owner, name);
+        } else if (!holding && held.remove(name)) {
+            log.info("Worker {} lost cluster lease {}", owner, name);
+        }
+        return holding;
+    }
+
+    /** Whether any worker holds the lease right now. Errors count as not held. */
+    public boolean isHeld(String name) {
+        try {
+            if (redisMode.isRedisAvailable()) {
+                return Boolean.TRUE.equals(redis.hasKey(KEY_PREFIX + name));
+            }
+            return leaseRepo.existsByNameAndExpiresAtAfter(name, Instant.now());
+        } catch (RuntimeException e) {
+            log.warn("Could not read cluster lease {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /** Gives the lease up early so another worker need not wait for it to expire. */
+    public void release(String name) {
+        if (!held.remove(name)) return;
+        try {
+            if (redisMode.isRedisAvailable()) {
+                redis.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + name), owner);
+            } else {
+                leaseRepo.release(name, owner);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not release cluster lease {}, it will expire: {}", name, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        List.copyOf(held).forEach(this::release);
+    }
+
+    private boolean holdInRedis(String name, long leaseMs) {
+        Long result = redis.execute(HOLD_SCRIPT, List.of(KEY_PREFIX + name), owner, Long.toString(leaseMs));
+        return result != null && result == 1L;
+    }
+
+    private boolean holdInDatabase(String name, long leaseMs) {
+        Instant now = Instant.now();
+        Instant until = now.plusMillis(leaseMs);
+        if (leaseRepo.renewOrTakeOver(name, owner, until, now) > 0) return true;
+        try {
+            return leaseRepo.create(name, owner, until) > 0;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+}
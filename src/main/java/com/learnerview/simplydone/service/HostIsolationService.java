@@ -0,0 +1,239 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.dto.HostLimitResponse;
+import com.learnerview.simplydone.exception.HostUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Circuit breakers and adaptive concurrency limits per destination host, so one tenant's slow or dead
+ * endpoint only holds back jobs aimed at that host.
+ */
+@Service
+@Profile("worker")
+@Slf4j
+public class HostIsolationService {
+
+    static final String CONFIG = "webhookHost";
+    private static final String NAME_PREFIX = "host:";
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final MeterRegistry meterRegistry;
+    private final SchedulerProperties.HostIsolation settings;
+    private final long idleEvictionMs;
+    private final ConcurrentHashMap<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    private static final class HostState {
+        final AdaptiveConcurrencyLimit limit;
+        final List<Meter> meters;
+        volatile long lastUsed = System.currentTimeMillis();
+        /** Set once the state has left {@code hosts}; a permit taken on it is given back and retried. */
+        volatile boolean evicted;
+
+        HostState(AdaptiveConcurrencyLimit limit, List<Meter> meters) {
+            this.limit = limit;
+            this.meters = meters;
+        }
+    }
+
+    public HostIsolationService(CircuitBreakerRegistry circuitBreakers, MeterRegistry meterRegistry,
+                                SchedulerProperties props) {
+        this.circuitBreakers = circuitBreakers;
+        this.meterRegistry = meterRegistry;
+        this.settings = props.getHostIsolation();
+        this.idleEvictionMs = settings.getIdleEvictionSeconds() * 1000L;
+    }
+
+    /**
+     * Takes a call slot on the host. The returned permit must be completed once the call ends.
+     * Touching the state inside {@code compute} orders this call against eviction; a state that
+     * was evicted anyway before its slot counted as in flight is dropped and the call tried again.
+     */
+    public Permit acquire(String host) {
+        while (true) {
+            HostState state = hosts.compute(host, (key, current) -> {
+                HostState touched = current != null ? current : newHostState(key);
+                touched.lastUsed = System.currentTimeMillis();
+                return touched;
+            });
+
+            CircuitBreaker breaker = circuitBreakers.circuitBreaker(NAME_PREFIX + host, CONFIG);
+            if (!breaker.tryAcquirePermission()) {
+                long deferMs = breaker.getState() == CircuitBreaker.State.OPEN
+                        ? breaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1)
+                        : settings.getBusyDeferMs();
+                throw new HostUnavailableException(host, "has an open circuit", withJitter(deferMs), false);
+            }
+            int inFlightAtStart = state.limit.tryAcquire();
+            if (state.evicted) {
+                // Nothing reads an evicted limit again, so its slot need not be handed back.
+                breaker.releasePermission();
+                continue;
+            }
+            if (inFlightAtStart < 0) {
+                breaker.releasePermission();
+                throw new HostUnavailableException(host, "is at its concurrency limit of " + state.limit.limit(),
+                        busyDeferMs(), true);
+            }
+            return new Permit(breaker, state.limit, inFlightAtStart);
+        }
+    }
+
+    /**
+     * How many more calls the host would admit right now, without taking any. A host not seen
+     * yet counts at the initial limit. Breakers are not consulted; an open one still defers.
+     */
+    public int spareCapacity(String host) {
+        HostState state = hosts.get(host);
+        if (state == null) return Math.max(1, settings.getInitialConcurrency());
+        return Math.max(0, state.limit.limit() - state.limit.inFlight());
+    }
+
+    /** Whether any tracked host has no room for another call right now. */
+    public boolean anyHostAtLimit() {
+        for (HostState state : hosts.values()) {
+            if (state.limit.inFlight() >= state.limit.limit()) return true;
+        }
+        return false;
+    }
+
+    /** How long a job for a host at its limit should wait before it is tried again. */
+    public long busyDeferMs() {
+        return withJitter(settings.getBusyDeferMs());
+    }
+
+    /** The lower-cased host of a webhook endpoint, or null when it has none. */
+    public static String hostOf(String endpoint) {
+        if (endpoint == null || endpoint.isBlank()) return null;
+        try {
+            String host = URI.create(endpoint).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Current limit, load and RTT estimates for every host this worker is tracking. */
+    public List<HostLimitResponse> snapshot() {
+        return hosts.entrySet().stream()
+                .map(entry -> {
+                    AdaptiveConcurrencyLimit limit = entry.getValue().limit;
+                    return HostLimitResponse.builder()
+                            .host(entry.getKey())
+                            .concurrencyLimit(limit.limit())
+                            .inFlight(limit.inFlight())
+                            .rttMs(measured(limit.smoothedRttMs()))
+                            .noLoadRttMs(measured(limit.noLoadRttMs()))
+                            .circuitState(circuitBreakers.find(NAME_PREFIX + entry.getKey())
+                                    .map(b -> b.getState().name()).orElse(null))
+                            .build();
+                })
+                .sorted(Comparator.comparing(HostLimitResponse::getHost))
+                .toList();
+    }
+
+    /**
+     * Idle hosts with no call in progress lose their breaker, limit and meters. The check and the
+     * removal run inside {@code computeIfPresent}, so no acquire for the host runs in between and
+     * a new state for it cannot register its gauges before the old ones are gone.
+     */
+    @Scheduled(fixedDelayString = "${simplydone.host-isolation.eviction-interval-ms:60000}")
+    public void evictIdleHosts() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        for (String candidate : hosts.keySet()) {
+            hosts.computeIfPresent(candidate, (host, state) -> {
+                if (state.lastUsed >= cutoff || state.limit.inFlight() > 0) return state;
+                state.evicted = true;
+                circuitBreakers.remove(NAME_PREFIX + host);
+                state.meters.forEach(meterRegistry::remove);
+                log.debug("Evicted idle host isolation state for {}", host);
+                return null;
+            });
+        }
+    }
+
+    private HostState newHostState(String host) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(settings.isAdaptiveConcurrency(),
+                settings.getInitialConcurrency(), settings.getMinConcurrency(), settings.getMaxConcurrency(),
+                settings.getBackoffRatio(), settings.getLatencyTolerance());
+        List<Meter> meters = List.of(
+                Gauge.builder("simplydone.host.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                        .tag("host", host).description("Adaptive concurrency limit for webhook calls to the host")
+                        .register(meterRegistry),
+                Gauge.builder("simplydone.host.concurrency.in_flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                        .tag("host", host).register(meterRegistry),
+                Gauge.builder("simplydone.host.rtt", limit, AdaptiveConcurrencyLimit::smoothedRttMs)
+                        .tag("host", host).baseUnit("milliseconds").description("Smoothed webhook round-trip time")
+                        .register(meterRegistry),
+                Gauge.builder("simplydone.host.rtt.no_load", limit, AdaptiveConcurrencyLimit::noLoadRttMs)
+                        .tag("host", host).baseUnit("milliseconds").description("Baseline round-trip time when unloaded")
+                        .register(meterRegistry));
+        return new HostState(limit, meters);
+    }
+
+    private static Double measured(double rttMs) {
+        return Double.isNaN(rttMs) ? null : rttMs;
+    }
+
+    /** Spreads deferred jobs out so they do not all hit the host again in the same instant. */
+    private static long withJitter(long delayMs) {
+        return delayMs + ThreadLocalRandom.current().nextLong(Math.max(delayMs / 5, 1));
+    }
+
+    /** One admitted call. 5xx, 408, 429 and transport errors count against the host. */
+    public static final class Permit {
+
+        private final CircuitBreaker breaker;
+        private final AdaptiveConcurrencyLimit limit;
+        private final int inFlightAtStart;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(CircuitBreaker breaker, AdaptiveConcurrencyLimit limit, int inFlightAtStart) {
+            this.breaker = breaker;
+            this.limit = limit;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void completed(int status) {
+            if (status >= 500 || status == 408 || status == 429) {
+                failed(new HostErrorStatus(status));
+                return;
+            }
+            if (!completed.compareAndSet(false, true)) return;
+            long rttNanos = System.nanoTime() - startNanos;
+            breaker.onSuccess(rttNanos, TimeUnit.NANOSECONDS);
+            limit.release(rttNanos, inFlightAtStart, false);
+        }
+
+        public void failed(Throwable error) {
+            if (!completed.compareAndSet(false, true)) return;
+            long rttNanos = System.nanoTime() - startNanos;
+            breaker.onError(rttNanos, TimeUnit.NANOSECONDS, error);
+            limit.release(rttNanos, inFlightAtStart, true);
+        }
+    }
+
+    private static final class HostErrorStatus extends RuntimeException {
+        HostErrorStatus(int status) {
+            super("HTTP " + status, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.repository.HostLimitRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/** Reports this worker's per-host limits to Redis for the admin API. */
+@Service
+@Profile("worker")
+@Slf4j
+@RequiredArgsConstructor
+public class HostLimitPublisher {
+
+    private final HostIsolationService hostIsolation;
+    private final HostLimitRepository hostLimitRepo;
+    private final SchedulerEngine schedulerEngine;
+    private final RedisModeController redisMode;
+
+    @Scheduled(fixedDelayString = "${simplydone.host-isolation.publish-interval-ms:5000}")
+    public void publish() {
+        if (!redisMode.isRedisAvailable()) return;
+
+        try {
+            hostLimitRepo.save(schedulerEngine.workerId(), Instant.now(), hostIsolation.snapshot());
+        } catch (RuntimeException e) {
+            log.debug("Could not publish host limits: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.repository.DurationSample;
+import com.learnerview.simplydone.repository.JobExecutionLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exponentially weighted estimate of how long a job holds its worker slot, per producer and destination.
+ * The scheduler charges lanes by {@link #relativeCost}.
+ */
+@Service
+@Profile("worker")
+@Slf4j
+public class JobDurationEstimator {
+
+    /** The average job moves slowly so one odd run does not reprice every lane. */
+    private static final double OVERALL_SMOOTHING = 0.01;
+
+    private final JobExecutionLogRepository logRepo;
+    private final boolean enabled;
+    private final double smoothing;
+    private final double maxRatio;
+    private final int maxKeys;
+    private final int warmupHours;
+    private final ConcurrentHashMap<String, Average> estimates = new ConcurrentHashMap<>();
+    private final Average overall = new Average();
+
+    public JobDurationEstimator(JobExecutionLogRepository logRepo, SchedulerProperties props) {
+        SchedulerProperties.Scheduler.Cost cost = props.getScheduler().getCost();
+        this.logRepo = logRepo;
+        this.enabled = cost.isEnabled();
+        this.smoothing = cost.getSmoothing();
+        this.maxRatio = Math.max(1.0, cost.getMaxRatio());
+        this.maxKeys = cost.getMaxKeys();
+        this.warmupHours = cost.getWarmupHours();
+    }
+
+    /** Seeds the estimates from execution logs so a restarted worker does not price every job the same. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || warmupHours <= 0) return;
+        try {
+            List<DurationSample> samples = logRepo.averageDurationsSince(
+                    Instant.now().minus(Duration.ofHours(warmupHours)), PageRequest.of(0, maxKeys));
+            Map<String, double[]> totals = new HashMap<>();
+            double totalMs = 0;
+            long totalRuns = 0;
+            for (DurationSample sample : samples) {
+                if (sample.getAverageMs() == null || sample.getSamples() == null) continue;
+                String key = key(sample.getProducer(), sample.getExecutionType(), sample.getExecutionEndpoint(),
+                        sample.getJobType());
+                double[] sum = totals.computeIfAbsent(key, k -> new double[2]);
+                sum[0] += sample.getAverageMs() * sample.getSamples();
+                sum[1] += sample.getSamples();
+                totalMs += sample.getAverageMs() * sample.getSamples();
+                totalRuns += sample.getSamples();
+            }
+            totals.forEach((key, sum) -> estimates.computeIfAbsent(key, k -> new Average()).seed(sum[0] / sum[1]));
+            if (totalRuns > 0) overall.seed(totalMs / totalRuns);
+            log.info("Seeded duration estimates for {} producer destinations from {} runs", totals.size(), totalRuns);
+        } catch (RuntimeException e) {
+            log.warn("Could not seed duration estimates, starting cold: {}", e.getMessage());
+        }
+    }
+
+    /** Feeds one finished run into the job's estimate. Deferred jobs never ran and are not recorded. */
+    public void record(JobEntity job, long durationMs) {
+        if (!enabled || durationMs < 0) return;
+        overall.add(durationMs, OVERALL_SMOOTHING);
+        String key = key(job);
+        Average estimate = estimates.get(key);
+        if (estimate == null) {
+            if (estimates.size() >= maxKeys) return;
+            estimate = estimates.computeIfAbsent(key, k -> new Average());
+        }
+        estimate.add(durationMs, smoothing);
+    }
+
+    /**
+     * Expected duration of the job over that of an average job, clamped to
+     * [1 / maxRatio, maxRatio]. 1 when either is unknown or cost charging is off.
+     */
+    public double relativeCost(JobEntity job) {
+        if (!enabled) return 1.0;
+        Average estimate = estimates.get(key(job));
+        double expectedMs = estimate != null ? estimate.get() : Double.NaN;
+        double averageMs = overall.get();
+        if (Double.isNaN(expectedMs) || Double.isNaN(averageMs) || averageMs <= 0) return 1.0;
+        return Math.min(maxRatio, Math.max(1.0 / maxRatio, Math.max(expectedMs, 1.0) / averageMs));
+    }
+
+    public int trackedDestinations() {
+        return estimates.size();
+    }
+
+    private static String key(JobEntity job) {
+        return key(job.getProducer(), job.getExecutionType(), job.getExecutionEndpoint(), job.getJobType());
+    }
+
+    static String key(String producer, String executionType, String endpoint, String jobType) {
+        if ("LOCAL".equalsIgnoreCase(executionType)) return producer + "|local:" + jobType;
+        String host = HostIsolationService.hostOf(endpoint);
+        return producer + "|" + (host != null ? host : Objects.requireNonNullElse(endpoint, ""));
+    }
+
+    private static final class Average {
+        private double value = Double.NaN;
+
+        synchronized void add(double sample, double smoothing) {
+            value = Double.isNaN(value) ? sample : value + smoothing * (sample - value);
+        }
+
+        /** Live runs recorded before the seed arrived win over it. */
+        synchronized void seed(double sample) {
+            if (Double.isNaN(value)) value = sample;
+        }
+
+        synchronized double get() {
+            return value;
+        }
+    }
+}
@@ -2,7 +2,15 @@ package com.learnerview.simplydone.service;
 
 import com.learnerview.simplydone.entity.JobEntity;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface JobExecutorService {
 
     void execute(JobEntity job);
+
+    /**
+     * Non-blocking variant of {@link #execute}: no thread waits on the HTTP call, and the
+     * returned future completes once the job's outcome has been recorded.
+     */
+    CompletableFuture<Void> executeAsync(JobEntity job);
 }
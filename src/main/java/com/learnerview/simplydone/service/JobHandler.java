@@ -0,0 +1,23 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.entity.JobEntity;
+
+/**
+ * In-process handler for LOCAL jobs of one {@code jobType}, run on workers like a webhook job.
+ * Handlers should be short and must be idempotent.
+ */
+public interface JobHandler {
+
+    /** The jobType this handler runs; unique across handlers. */
+    String jobType();
+
+    default String description() {
+        return "";
+    }
+
+    /**
+     * Runs one attempt of the job. The returned text, which may be null, becomes the job's result,
+     * capped at max-result-bytes; a thrown exception fails the attempt.
+     */
+    String handle(JobEntity job) throws Exception;
+}
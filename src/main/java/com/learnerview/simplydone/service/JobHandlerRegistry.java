@@ -0,0 +1,51 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.dto.HandlerInfoResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/** The {@link JobHandler} beans in the context, keyed by jobType. Two handlers for one jobType fail startup. */
+@Component
+@Slf4j
+public class JobHandlerRegistry {
+
+    private final Map<String, JobHandler> handlers = new TreeMap<>();
+
+    public JobHandlerRegistry(List<JobHandler> handlers) {
+        for (JobHandler handler : handlers) {
+            JobHandler previous = this.handlers.putIfAbsent(handler.jobType(), handler);
+            if (previous != null) {
+                throw new IllegalStateException("Job type " + handler.jobType() + " is handled by both "
+                        + AopUtils.getTargetClass(previous).getName() + " and "
+                        + AopUtils.getTargetClass(handler).getName());
+            }
+        }
+        if (!this.handlers.isEmpty()) {
+            log.info("Registered local job handlers for {}", this.handlers.keySet());
+        }
+    }
+
+    public Optional<JobHandler> find(String jobType) {
+        return jobType != null ? Optional.ofNullable(handlers.get(jobType)) : Optional.empty();
+    }
+
+    public int size() {
+        return handlers.size();
+    }
+
+    public List<HandlerInfoResponse> describe() {
+        return handlers.values().stream()
+                .map(handler -> HandlerInfoResponse.builder()
+                        .jobType(handler.jobType())
+                        .description(handler.description())
+                        .handlerClass(AopUtils.getTargetClass(handler).getSimpleName())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,101 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.QueueRepository;
+import com.learnerview.simplydone.repository.QueuedJobRef;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Streams queued jobs that have moved inside the scheduling horizon from the database into Redis.
+ * Each run re-scans the last tenth of the horizon behind its watermark.
+ */
+@Service
+@Profile("worker")
+@Slf4j
+public class QueueHorizonLoader {
+
+    static final String LOADER_LEASE = "queue:horizon-loader";
+
+    private final JobEntityRepository jobRepo;
+    private final QueueRepository queueRepo;
+    private final RedisModeController redisMode;
+    private final ClusterLeaseService leases;
+    private final SchedulerProperties props;
+    private final long horizonMs;
+    private final int batchSize;
+    private final long leaseMs;
+
+    /** Upper bound of the window already loaded; the next run resumes from here. */
+    private Instant loadedUntil = Instant.now();
+    /** Whether this worker ran the previous load, so {@link #loadedUntil} is still its own. */
+    private boolean loadedLastRun;
+
+    public QueueHorizonLoader(JobEntityRepository jobRepo, QueueRepository queueRepo,
+                              RedisModeController redisMode, ClusterLeaseService leases,
+                              SchedulerProperties props) {
+        this.jobRepo = jobRepo;
+        this.queueRepo = queueRepo;
+        this.redisMode = redisMode;
+        this.leases = leases;
+        this.props = props;
+        this.horizonMs = props.getQueue().getHorizonSeconds() * 1000L;
+        this.batchSize = props.getQueue().getHorizonLoaderBatchSize();
+        this.leaseMs = 2 * props.getQueue().getHorizonLoaderIntervalMs();
+    }
+
+    @Scheduled(fixedDelayString = "${simplydone.queue.horizon-loader-interval-ms:60000}")
+    public void loadUpcoming() {
+        // The watermark stays put, so the skipped window is loaded once Redis is back.
+        if (!redisMode.isRedisAvailable()) return;
+        if (props.getWorker().getSweep().isLeaderElection() && !leases.tryHold(LOADER_LEASE, leaseMs)) {
+            loadedLastRun = false;
+            return;
+        }
+
+        Instant now = Instant.now();
+        if (!loadedLastRun) {
+            loadedUntil = now;
+            loadedLastRun = true;
+        }
+        Instant until = now.plusMillis(horizonMs);
+        Instant afterRunAt = loadedUntil.minusMillis(horizonMs / 10);
+        String afterId = "";
+        int loaded = 0;
+
+        try {
+            while (true) {
+                List<QueuedJobRef> page = jobRepo.findQueuedPage(JobStatus.QUEUED, afterRunAt, afterId, until,
+                        PageRequest.of(0, batchSize));
+                if (page.isEmpty()) break;
+
+                queueRepo.enqueueAll(page);
+                loaded += page.size();
+
+                QueuedJobRef last = page.get(page.size() - 1);
+                afterRunAt = last.getNextRunAt();
+                afterId = last.getId();
+                if (page.size() < batchSize) break;
+            }
+            loadedUntil = until;
+        } catch (RuntimeException e) {
+            // Keep the old watermark so the whole window is retried. Re-adding a member still in the
+            // delayed set only rewrites its score, but one already promoted gets a second copy; the
+            // lease UPDATE only takes QUEUED rows, so that copy is claimed and dropped.
+            log.warn("Horizon load stopped after {} jobs, will retry: {}", loaded, e.getMessage());
+            return;
+        }
+
+        if (loaded > 0) {
+            log.info("Loaded {} jobs due before {} into the Redis queue", loaded, until);
+        }
+    }
+}
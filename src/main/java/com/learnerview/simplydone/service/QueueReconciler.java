@@ -0,0 +1,196 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.ProducerWeightEntity;
+import com.learnerview.simplydone.model.JobPriority;
+import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.ProducerWeightRepository;
+import com.learnerview.simplydone.repository.QueueRepository;
+import com.learnerview.simplydone.repository.QueuedJobRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Re-enqueues QUEUED jobs that exist only in the database, at startup and when the node switches back to Redis.
+ * Duplicates from jobs moving during the scan are harmless, since only a QUEUED row can be leased.
+ */
+@Service
+@Profile("worker")
+@Slf4j
+public class QueueReconciler {
+
+    static final String RECONCILER_LEASE = "queue:reconciler";
+
+    private final JobEntityRepository jobRepo;
+    private final QueueRepository queueRepo;
+    private final ProducerWeightRepository producerWeightRepo;
+    private final RedisModeController redisMode;
+    private final ClusterLeaseService leases;
+    private final SchedulerProperties props;
+    private final long horizonMs;
+    private final int batchSize;
+    private final Counter repairedCounter;
+
+    private final ExecutorService runner =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("queue-reconciler-"));
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    public QueueReconciler(JobEntityRepository jobRepo, QueueRepository queueRepo,
+                           ProducerWeightRepository producerWeightRepo, RedisModeController redisMode,
+                           ClusterLeaseService leases, MeterRegistry meterRegistry, SchedulerProperties props) {
+        this.jobRepo = jobRepo;
+        this.queueRepo = queueRepo;
+        this.producerWeightRepo = producerWeightRepo;
+        this.redisMode = redisMode;
+        this.leases = leases;
+        this.props = props;
+        this.horizonMs = props.getQueue().getHorizonSeconds() * 1000L;
+        this.batchSize = props.getQueue().getHorizonLoaderBatchSize();
+        this.repairedCounter = Counter.builder("simplydone.queue.reconciled")
+                .description("Queued jobs found missing from Redis and re-enqueued")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        requestRun();
+    }
+
+    @EventListener
+    public void onRedisModeChanged(RedisModeController.ModeChangedEvent event) {
+        if (event.mode() == RedisModeController.Mode.REDIS) {
+            requestRun();
+        }
+    }
+
+    /** Requests made while a run is queued collapse into that run. */
+    public void requestRun() {
+        if (pending.compareAndSet(false, true)) {
+            runner.execute(() -> {
+                pending.set(false);
+                reconcile();
+            });
+        }
+    }
+
+    /** Returns how many jobs were re-enqueued, or -1 if the run was skipped or aborted. */
+    int reconcile() {
+        if (!redisMode.isRedisAvailable()) return -1;
+        if (!props.getWorker().getSweep().isLeaderElection()) return scan(() -> true);
+
+        long leaseMs = props.getWorker().getSweep().getLeaseMs();
+        if (!leases.tryHold(RECONCILER_LEASE, leaseMs)) {
+            log.debug("Queue reconciliation skipped, another worker is running it");
+            return -1;
+        }
+        try {
+            return scan(() -> leases.tryHold(RECONCILER_LEASE, leaseMs));
+        } finally {
+            leases.release(RECONCILER_LEASE);
+        }
+    }
+
+    private int scan(BooleanSupplier renew) {
+        long startMs = System.currentTimeMillis();
+        Instant until = Instant.now().plusMillis(horizonMs);
+        Instant afterRunAt = Instant.EPOCH;
+        String afterId = "";
+        int scanned = 0;
+        int repaired = 0;
+
+        try {
+            Map<String, Integer> weights = producerWeightRepo.findAll().stream()
+                    .collect(Collectors.toMap(ProducerWeightEntity::getProducer, ProducerWeightEntity::getWeight));
+            queueRepo.replaceProducerWeights(weights);
+            long upgraded = queueRepo.upgradeLegacyEntries();
+            if (upgraded > 0) log.info("Queue reconciliation upgraded {} legacy queue entries", upgraded);
+
+            Map<ReadyListKey, ReadyList> ready = new HashMap<>();
+
+            while (true) {
+                if (scanned > 0 && !renew.getAsBoolean()) {
+                    log.warn("Queue reconciliation lost its lease after {} jobs ({} re-enqueued)", scanned, repaired);
+                    return -1;
+                }
+                List<QueuedJobRef> page = jobRepo.findQueuedPage(JobStatus.QUEUED, afterRunAt, afterId, until,
+                        PageRequest.of(0, batchSize));
+                if (page.isEmpty()) break;
+                scanned += page.size();
+
+                List<QueuedJobRef> missing = queueRepo.filterNotDelayed(
+                        page.stream().filter(job -> !ready.computeIfAbsent(
+                                new ReadyListKey(job.getPriority(), job.getProducer()), ReadyList::new)
+                                .contains(job.getId())).toList());
+                if (!missing.isEmpty()) {
+                    queueRepo.enqueueAll(missing);
+                    repaired += missing.size();
+                    repairedCounter.increment(missing.size());
+                }
+
+                QueuedJobRef last = page.get(page.size() - 1);
+                afterRunAt = last.getNextRunAt();
+                afterId = last.getId();
+                if (page.size() < batchSize) break;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Queue reconciliation stopped after {} jobs ({} re-enqueued): {}", scanned, repaired, e.getMessage());
+            return -1;
+        }
+
+        log.info("Queue reconciliation scanned {} queued jobs and re-enqueued {} in {} ms",
+                scanned, repaired, System.currentTimeMillis() - startMs);
+        return repaired;
+    }
+
+    private record ReadyListKey(JobPriority priority, String producer) {}
+
+    /** One producer's ready list, read a window at a time as the scan asks for its jobs. */
+    private final class ReadyList {
+        private final ReadyListKey key;
+        /** IDs read but not yet asked for. */
+        private final Set<String> ahead = new HashSet<>();
+        private long next;
+        private boolean exhausted;
+
+        ReadyList(ReadyListKey key) {
+            this.key = key;
+        }
+
+        boolean contains(String jobId) {
+            while (!ahead.remove(jobId)) {
+                if (exhausted) return false;
+                List<String> window = queueRepo.readyJobIds(key.priority(), key.producer(), next, batchSize);
+                next += window.size();
+                exhausted = window.size() < batchSize;
+                ahead.addAll(window);
+            }
+            return true;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+}
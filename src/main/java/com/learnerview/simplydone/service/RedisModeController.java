@@ -0,0 +1,121 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.RedisConnectionCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide switch between Redis and database-only operation, decided by a background PING
+ * and changed only after several probes agree.
+ */
+@Service
+@Slf4j
+public class RedisModeController {
+
+    public enum Mode { REDIS, DATABASE }
+
+    /** Published whenever the node switches mode. */
+    public record ModeChangedEvent(Mode mode) {}
+
+    private final StringRedisTemplate redis;
+    private final ApplicationEventPublisher events;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final long probeIntervalMs;
+    private final int failuresToDegrade;
+    private final int successesToRecover;
+    private final ScheduledExecutorService prober =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("redis-probe-"));
+
+    private volatile Mode mode = Mode.REDIS;
+    private int consecutiveFailures;
+    private int consecutiveSuccesses;
+
+    public RedisModeController(StringRedisTemplate redis, ApplicationEventPublisher events,
+                               CircuitBreakerRegistry circuitBreakers, MeterRegistry meterRegistry,
+                               SchedulerProperties props) {
+        this.redis = redis;
+        this.events = events;
+        this.circuitBreakers = circuitBreakers;
+        this.probeIntervalMs = props.getRedisMode().getProbeIntervalMs();
+        this.failuresToDegrade = Math.max(1, props.getRedisMode().getFailuresToDegrade());
+        this.successesToRecover = Math.max(1, props.getRedisMode().getSuccessesToRecover());
+
+        Gauge.builder("simplydone.redis.mode", this, c -> c.mode == Mode.REDIS ? 1 : 0)
+                .description("1 while the node uses Redis, 0 while it runs database-only")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // Runs on its own thread so a hanging PING never delays the shared task scheduler.
+        prober.scheduleWithFixedDelay(this::probe, 0, probeIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isRedisAvailable() {
+        return mode == Mode.REDIS;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    void probe() {
+        boolean healthy;
+        try {
+            healthy = "PONG".equalsIgnoreCase(redis.execute((RedisCallback<String>) RedisConnectionCommands::ping));
+        } catch (RuntimeException e) {
+            healthy = false;
+        }
+
+        if (healthy) {
+            consecutiveFailures = 0;
+            consecutiveSuccesses++;
+            if (mode == Mode.DATABASE && consecutiveSuccesses >= successesToRecover) {
+                switchTo(Mode.REDIS);
+            }
+        } else {
+            consecutiveSuccesses = 0;
+            consecutiveFailures++;
+            if (mode == Mode.REDIS && consecutiveFailures >= failuresToDegrade) {
+                switchTo(Mode.DATABASE);
+            }
+        }
+    }
+
+    private void switchTo(Mode next) {
+        mode = next;
+        if (next == Mode.DATABASE) {
+            log.warn("Redis unreachable for {} probes, switching to database-only mode", consecutiveFailures);
+        } else {
+            log.info("Redis healthy for {} probes, switching back to Redis mode", consecutiveSuccesses);
+            // The probes are stronger evidence than the breaker's open timer, which would otherwise
+            // keep rejecting queue calls for up to its full wait after Redis is back.
+            circuitBreakers.find("redisQueue").ifPresent(CircuitBreaker::transitionToClosedState);
+        }
+        try {
+            events.publishEvent(new ModeChangedEvent(next));
+        } catch (RuntimeException e) {
+            log.error("Redis mode change listener failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+}
@@ -7,4 +7,13 @@ public interface RetryService {
     void handleFailure(JobEntity job, String errorMessage, long durationMs);
 
     void logSuccess(JobEntity job, String message, long durationMs);
+
+    /** Pushes the job back by {@code delayMs} without consuming an attempt. */
+    void defer(JobEntity job, long delayMs, String reason);
+
+    /**
+     * Returns a leased job straight to its queue, due in {@code delayMs}, because its host was
+     * busy. Unlike {@link #defer} it skips the retry promoter and sends no event.
+     */
+    void requeue(JobEntity job, long delayMs);
 }
@@ -4,23 +4,40 @@ import com.learnerview.simplydone.config.SchedulerProperties;
 import com.learnerview.simplydone.entity.JobEntity;
 import com.learnerview.simplydone.model.JobPriority;
 import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.ClaimedJob;
+import com.learnerview.simplydone.repository.JobDestination;
 import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.LanePromotion;
 import com.learnerview.simplydone.repository.QueueRepository;
+import com.learnerview.simplydone.service.scheduling.SchedulingPolicy;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Deficit Round-Robin scheduler for worker polling.
- * Idle lanes accumulate deficit so lower-priority jobs still make progress.
+ * Lane scheduler for worker polling. Free slots are split across lanes by the configured {@link SchedulingPolicy},
+ * each lane is claimed in one batch, and the claimed jobs are leased in the database with one statement.
  */
 @Service
 @Profile("worker")
@@ -30,98 +47,402 @@ public class SchedulerEngine {
     private final QueueRepository queueRepo;
     private final JobEntityRepository jobRepo;
     private final JobExecutorService executor;
+    private final RedisModeController redisMode;
+    private final JobDurationEstimator durations;
+    private final HostIsolationService hostIsolation;
+
+    /** Same default the executor applies to a job without timeoutSeconds. */
+    private static final int DEFAULT_TIMEOUT_SECONDS = 10;
+    private static final int HEARTBEAT_BATCH_SIZE = 500;
+    private static final String BATCH_HTTP = "BATCH_HTTP";
 
     private final JobPriority[] priorities = JobPriority.values();
-    private final int[] weights;
-    private final int[] deficit;
-    private final int totalWeight;
+    private final SchedulingPolicy policy;
     private final int leaseTimeoutSeconds;
+    private final long leaseGraceMs;
+    private final int promoteBatchSize;
     private final String workerId;
 
+    private final boolean asyncExecution;
+    /** Cap on jobs holding a dispatch thread; the same as {@code maxInFlight} outside blocking mode. */
+    private final int concurrency;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger onDispatchThreads = new AtomicInteger();
+    /** Job ID to the time after which its lease is no longer extended, for every job in flight. */
+    private final ConcurrentHashMap<String, Long> leaseDeadlines = new ConcurrentHashMap<>();
+    /** Null in async execution mode. */
+    private final ExecutorService dispatchPool;
+
+    private final long pollingIntervalMs;
+    private final boolean wakeupEnabled;
+    private final long safetyPollIntervalMs;
+    private final Semaphore wakeups = new Semaphore(0);
+    private volatile boolean saturated;
+    private volatile boolean usingDatabaseFallback;
+    /** Earliest delayed run time the last promotion pass saw, Long.MAX_VALUE when none; dispatcher thread only. */
+    private long nextDelayedAt = Long.MAX_VALUE;
+    private volatile boolean running;
+    private Thread dispatcher;
+
     public SchedulerEngine(QueueRepository queueRepo, JobEntityRepository jobRepo,
-                           JobExecutorService executor, SchedulerProperties props) {
+                           JobExecutorService executor, RedisModeController redisMode,
+                           JobDurationEstimator durations, HostIsolationService hostIsolation,
+                           SchedulerProperties props) {
         this.queueRepo = queueRepo;
         this.jobRepo = jobRepo;
         this.executor = executor;
+        this.redisMode = redisMode;
+        this.durations = durations;
+        this.hostIsolation = hostIsolation;
 
-        this.weights = new int[]{
-                props.getScheduler().getWeights().getHigh(),
-                props.getScheduler().getWeights().getNormal(),
-                props.getScheduler().getWeights().getLow()
-        };
-        this.deficit = new int[priorities.length];
-        this.totalWeight = weights[0] + weights[1] + weights[2];
+        this.policy = SchedulingPolicy.fromConfig(props.getScheduler(), Clock.systemUTC());
         this.leaseTimeoutSeconds = props.getWorker().getLeaseTimeoutSeconds();
+        this.leaseGraceMs = props.getWorker().getLeaseGraceSeconds() * 1000L;
+        if (props.getWorker().getHeartbeatIntervalMs() >= leaseTimeoutSeconds * 1000L) {
+            log.warn("Lease heartbeat every {} ms cannot keep {} s leases alive; in-flight jobs will be reaped",
+                    props.getWorker().getHeartbeatIntervalMs(), leaseTimeoutSeconds);
+        }
+        this.promoteBatchSize = props.getQueue().getPromoteBatchSize();
         this.workerId = (System.getenv("HOSTNAME") != null ? System.getenv("HOSTNAME") : "worker")
             + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+        this.asyncExecution = props.getWorker().getExecutionMode() == SchedulerProperties.ExecutionMode.ASYNC;
+        this.concurrency = Math.max(1, asyncExecution
+                ? props.getWorker().getMaxInFlight() : props.getWorker().getConcurrency());
+        this.maxInFlight = Math.max(concurrency, props.getWorker().getMaxInFlight());
+        this.dispatchPool = asyncExecution
+                ? null : Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("job-worker-"));
+
+        this.pollingIntervalMs = props.getScheduler().getPollingIntervalMs();
+        this.wakeupEnabled = props.getScheduler().getWakeup().isEnabled();
+        this.safetyPollIntervalMs = props.getScheduler().getWakeup().getSafetyPollIntervalMs();
     }
 
-    @Scheduled(fixedDelayString = "${simplydone.scheduler.polling-interval-ms:1000}")
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "job-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /** In database-only mode Redis is not touched at all; a failure inside a Redis tick still falls back. */
     public void poll() {
-        for (int i = 0; i < priorities.length; i++) {
-            deficit[i] += weights[i];
+        boolean polledRedis = false;
+        if (redisMode.isRedisAvailable()) {
+            try {
+                pollRedisQueue();
+                polledRedis = true;
+            } catch (RuntimeException e) {
+                log.warn("Redis queue unavailable, using DB fallback: {}", e.getMessage());
+            }
+        }
+        usingDatabaseFallback = !polledRedis;
+        if (!polledRedis) {
+            pollDatabaseQueue();
         }
+        saturated = freeSlots() <= 0;
+    }
+
+    /** Re-polls right away so a recovered Redis is used without waiting out the DB polling interval. */
+    @EventListener
+    public void onRedisModeChanged(RedisModeController.ModeChangedEvent event) {
+        wakeUp();
+    }
+
+    /** Cuts the current wait short; repeated signals during one tick collapse into one re-poll. */
+    public void wakeUp() {
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.error("Scheduler tick failed: {}", e.getMessage());
+            }
+            try {
+                wakeups.tryAcquire(nextWaitMs(), TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
 
+    /** Without wake-ups, or while Redis is down, this is the fixed polling interval. */
+    private long nextWaitMs() {
+        if (!wakeupEnabled || usingDatabaseFallback) {
+            return pollingIntervalMs;
+        }
+        if (saturated) {
+            // A finishing job wakes the dispatcher, so there is no point watching due times.
+            return safetyPollIntervalMs;
+        }
+        long waitMs = Math.min(safetyPollIntervalMs, nextDelayedAt - System.currentTimeMillis());
+        return Math.max(waitMs, 1);
+    }
+
+    /** Lease owner written on every job this node claims. */
+    public String workerId() {
+        return workerId;
+    }
+
+    /** Number of jobs currently handed to the executor and not yet finished. */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Jobs this node can still take: a free dispatch thread, within the overall in-flight cap. */
+    private int freeSlots() {
+        return Math.min(concurrency - onDispatchThreads.get(), maxInFlight - inFlight.get());
+    }
+
+    /**
+     * Extends the lease of every in-flight job still within its timeout plus grace, in batches of
+     * {@value #HEARTBEAT_BATCH_SIZE} IDs per statement.
+     */
+    @Scheduled(fixedDelayString = "${simplydone.worker.heartbeat-interval-ms:10000}")
+    public void extendLeases() {
+        long now = System.currentTimeMillis();
+        List<String> live = new ArrayList<>();
+        leaseDeadlines.forEach((jobId, deadline) -> {
+            if (deadline > now) live.add(jobId);
+        });
+        if (live.isEmpty()) return;
+
+        Instant visibleUntil = Instant.ofEpochMilli(now).plusSeconds(leaseTimeoutSeconds);
         try {
-            pollRedisQueue();
+            int extended = 0;
+            for (int from = 0; from < live.size(); from += HEARTBEAT_BATCH_SIZE) {
+                List<String> batch = live.subList(from, Math.min(from + HEARTBEAT_BATCH_SIZE, live.size()));
+                extended += jobRepo.extendLeases(batch, workerId, JobStatus.RUNNING, visibleUntil);
+            }
+            log.debug("Extended {} of {} in-flight leases to {}", extended, leaseDeadlines.size(), visibleUntil);
         } catch (RuntimeException e) {
-            log.warn("Redis queue unavailable, using DB fallback: {}", e.getMessage());
-            pollDatabaseQueue();
+            log.warn("Lease heartbeat failed, {} in-flight jobs may be reaped: {}", live.size(), e.getMessage());
         }
     }
 
     private void pollRedisQueue() {
-        int bestIdx = -1;
-        int bestDeficit = Integer.MIN_VALUE;
+        Map<String, Integer> hostRoom = new HashMap<>();
+        while (freeSlots() > 0) {
+            long[] ready = new long[priorities.length];
+            long nextDue = Long.MAX_VALUE;
+            for (int i = 0; i < priorities.length; i++) {
+                LanePromotion promoted = queueRepo.promoteDue(priorities[i], promoteBatchSize);
+                ready[i] = promoted.ready();
+                if (promoted.nextDelayedAt() != null) nextDue = Math.min(nextDue, promoted.nextDelayedAt());
+            }
+            nextDelayedAt = nextDue;
+
+            int[] slots = policy.allocate(freeSlots(), ready);
+
+            int admittedTotal = 0;
+            for (int i = 0; i < priorities.length; i++) {
+                if (slots[i] == 0) continue;
 
-        for (int i = 0; i < priorities.length; i++) {
-            if (deficit[i] > bestDeficit && queueRepo.queueSize(priorities[i]) > 0) {
-                bestDeficit = deficit[i];
-                bestIdx = i;
+                List<ClaimedJob> admitted = holdBackBusyHosts(queueRepo.claimReady(priorities[i], slots[i]),
+                        priorities[i], hostRoom);
+                int leased = leaseAndDispatch(admitted, priorities[i]);
+                if (leased < slots[i]) policy.refund(i, slots[i] - leased);
+                admittedTotal += admitted.size();
             }
+            // Nothing was claimed, or all of it went back for busy hosts; another pass would only
+            // move the same hosts' jobs from the ready lists to the delayed sets.
+            if (admittedTotal == 0) return;
         }
+    }
+
+    /**
+     * Redis-down path with the same slot allocation as the Redis path. Each lane's share is
+     * leased straight from the table with SKIP LOCKED, so worker nodes take disjoint batches.
+     * A lane that returns fewer rows than asked is treated as drained for the rest of the tick.
+     */
+    private void pollDatabaseQueue() {
+        long[] ready = new long[priorities.length];
+        Arrays.fill(ready, Long.MAX_VALUE);
 
-        if (bestIdx == -1) return;
+        // Every pass either leases something or marks a lane drained, so this terminates.
+        while (freeSlots() > 0 && Arrays.stream(ready).anyMatch(r -> r > 0)) {
+            int[] slots = policy.allocate(freeSlots(), ready);
 
-        Optional<String> claimed = queueRepo.claimNextReady(priorities[bestIdx]);
-        if (claimed.isEmpty()) return;
+            for (int i = 0; i < priorities.length; i++) {
+                if (slots[i] == 0) continue;
 
-        deficit[bestIdx] -= totalWeight;
-        executeClaimedJob(claimed.get());
+                Instant now = Instant.now();
+                List<JobEntity> leased = jobRepo.leaseDueForExecution(priorities[i], slots[i],
+                        UUID.randomUUID().toString(), workerId, now.plusSeconds(leaseTimeoutSeconds), now);
+                if (leased.size() < slots[i]) {
+                    policy.refund(i, slots[i] - leased.size());
+                    ready[i] = 0;
+                }
+                chargeExpectedCost(i, leased);
+                leased.forEach(this::dispatch);
+            }
+        }
     }
 
-    private void pollDatabaseQueue() {
-        List<Integer> order = Arrays.stream(new int[]{0, 1, 2})
-                .boxed()
-                .sorted(Comparator.comparingInt((Integer i) -> deficit[i]).reversed())
-                .toList();
+    /**
+     * Returns the claimed jobs whose host can take another call; the rest go back to the delayed set
+     * for the host's busy delay, unleased and without a wake-up.
+     */
+    private List<ClaimedJob> holdBackBusyHosts(List<ClaimedJob> claimed, JobPriority priority,
+                                               Map<String, Integer> hostRoom) {
+        if (claimed.isEmpty() || (hostRoom.isEmpty() && !hostIsolation.anyHostAtLimit())) return claimed;
+        Map<String, String> hosts = new HashMap<>();
+        try {
+            for (JobDestination destination : jobRepo.findDestinations(claimed.stream().map(ClaimedJob::id).toList())) {
+                String type = destination.getExecutionType();
+                if (type != null && !"HTTP".equalsIgnoreCase(type)) continue;
+                String host = HostIsolationService.hostOf(destination.getExecutionEndpoint());
+                if (host != null) hosts.put(destination.getId(), host);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not read destinations of {} claimed jobs: {}", claimed.size(), e.getMessage());
+            return claimed;
+        }
+        if (hosts.isEmpty()) return claimed;
 
-        Instant now = Instant.now();
-        for (Integer idx : order) {
-            List<JobEntity> dueJobs = jobRepo
-                    .findTop100ByStatusAndPriorityAndNextRunAtLessThanEqualOrderByNextRunAtAsc(
-                            JobStatus.QUEUED, priorities[idx], now);
-            if (dueJobs.isEmpty()) {
+        List<ClaimedJob> admitted = new ArrayList<>(claimed.size());
+        List<ClaimedJob> heldBack = new ArrayList<>();
+        for (ClaimedJob job : claimed) {
+            String host = hosts.get(job.id());
+            if (host == null) {
+                admitted.add(job);
                 continue;
             }
+            int room = hostRoom.computeIfAbsent(host, hostIsolation::spareCapacity);
+            if (room > 0) {
+                hostRoom.put(host, room - 1);
+                admitted.add(job);
+            } else {
+                heldBack.add(job);
+            }
+        }
+        if (!heldBack.isEmpty()) {
+            long retryAt = System.currentTimeMillis() + hostIsolation.busyDeferMs();
+            queueRepo.deferClaimed(heldBack, priority, retryAt);
+            nextDelayedAt = Math.min(nextDelayedAt, retryAt);
+            log.debug("Held back {} {} jobs for hosts at their concurrency limit", heldBack.size(), priority);
+        }
+        return admitted;
+    }
 
-            deficit[idx] -= totalWeight;
-            executeClaimedJob(dueJobs.get(0).getId());
-            return;
+    /**
+     * Leases a batch claimed from Redis and hands the leased rows to the pool. If the lease
+     * statement fails the IDs are put back on the ready list instead of being dropped.
+     */
+    private int leaseAndDispatch(List<ClaimedJob> claimed, JobPriority priority) {
+        if (claimed.isEmpty()) return 0;
+        List<JobEntity> leased;
+        try {
+            leased = lease(claimed.stream().map(ClaimedJob::id).toList());
+        } catch (RuntimeException e) {
+            log.warn("Lease of {} claimed jobs failed, requeueing them: {}", claimed.size(), e.getMessage());
+            long now = System.currentTimeMillis();
+            for (ClaimedJob job : claimed) {
+                queueRepo.enqueue(job.id(), job.producer(), priority, now);
+            }
+            return 0;
+        }
+        chargeExpectedCost(priority.ordinal(), leased);
+        leased.forEach(this::dispatch);
+        return leased.size();
+    }
+
+    /** Every slot was allocated as one average job; the policy settles the difference once the jobs are known. */
+    private void chargeExpectedCost(int lane, List<JobEntity> leased) {
+        for (JobEntity job : leased) {
+            policy.charge(lane, durations.relativeCost(job) - 1.0);
         }
     }
 
-    private void executeClaimedJob(String jobId) {
+    /** One UPDATE for the whole batch; rows already leased, cancelled or rescheduled are skipped. */
+    private List<JobEntity> lease(List<String> jobIds) {
         Instant now = Instant.now();
-        String leaseToken = UUID.randomUUID().toString();
-        Instant visibleUntil = now.plusSeconds(leaseTimeoutSeconds);
-        int updated = jobRepo.claimForExecution(jobId, leaseToken, workerId, visibleUntil, now,
-                JobStatus.QUEUED, JobStatus.RUNNING);
-        if (updated != 1) return;
-
-        jobRepo.findById(jobId).ifPresentOrElse(
-                executor::execute,
-                () -> log.warn("Claimed job {} not found in DB", jobId)
-        );
+        return jobRepo.leaseForExecution(jobIds, UUID.randomUUID().toString(), workerId,
+                now.plusSeconds(leaseTimeoutSeconds), now);
+    }
+
+    private void dispatch(JobEntity job) {
+        inFlight.incrementAndGet();
+        int timeoutSeconds = job.getTimeoutSeconds() != null ? job.getTimeoutSeconds() : DEFAULT_TIMEOUT_SECONDS;
+        leaseDeadlines.put(job.getId(), System.currentTimeMillis() + timeoutSeconds * 1000L + leaseGraceMs);
+        if (asyncExecution || BATCH_HTTP.equalsIgnoreCase(job.getExecutionType())) {
+            dispatchAsync(job);
+            return;
+        }
+        onDispatchThreads.incrementAndGet();
+        try {
+            dispatchPool.execute(() -> {
+                try {
+                    executor.execute(job);
+                } catch (RuntimeException e) {
+                    // The lease stays in place, so the reaper will recover the job.
+                    log.error("Execution of job {} failed: {}", job.getId(), e.getMessage());
+                } finally {
+                    onDispatchThreads.decrementAndGet();
+                    release(job);
+                }
+            });
+        } catch (RuntimeException e) {
+            onDispatchThreads.decrementAndGet();
+            leaseDeadlines.remove(job.getId());
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void dispatchAsync(JobEntity job) {
+        CompletableFuture<Void> execution;
+        try {
+            execution = executor.executeAsync(job);
+        } catch (RuntimeException e) {
+            execution = CompletableFuture.failedFuture(e);
+        }
+        execution.whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.error("Execution of job {} failed: {}", job.getId(), error.getMessage());
+            }
+            release(job);
+        });
+    }
+
+    private void release(JobEntity job) {
+        leaseDeadlines.remove(job.getId());
+        inFlight.decrementAndGet();
+        if (saturated) {
+            wakeUp();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (dispatchPool == null) {
+            if (inFlight.get() > 0) {
+                log.warn("Stopping with {} async jobs in flight; their leases will expire for the reaper", inFlight.get());
+            }
+            return;
+        }
+        dispatchPool.shutdown();
+        try {
+            if (!dispatchPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Dispatch pool did not drain in time, {} jobs still in flight", inFlight.get());
+                dispatchPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            dispatchPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 }
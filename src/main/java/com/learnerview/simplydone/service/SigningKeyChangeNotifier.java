@@ -0,0 +1,54 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tells every worker, after commit, that a producer's API keys changed, so cached signing keys are dropped.
+ */
+@Component
+@Slf4j
+public class SigningKeyChangeNotifier {
+
+    private final StringRedisTemplate redis;
+    private final RedisModeController redisMode;
+    private final ObjectProvider<WebhookSigner> localSigner;
+    private final String channel;
+
+    public SigningKeyChangeNotifier(StringRedisTemplate redis, RedisModeController redisMode,
+                                    ObjectProvider<WebhookSigner> localSigner, SchedulerProperties props) {
+        this.redis = redis;
+        this.redisMode = redisMode;
+        this.localSigner = localSigner;
+        this.channel = props.getSigning().getChannel();
+    }
+
+    public void keysChanged(String producer) {
+        if (producer == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyWorkers(producer);
+                }
+            });
+        } else {
+            notifyWorkers(producer);
+        }
+    }
+
+    private void notifyWorkers(String producer) {
+        localSigner.ifAvailable(signer -> signer.invalidate(producer));
+        if (!redisMode.isRedisAvailable()) return;
+        try {
+            redis.convertAndSend(channel, producer);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish signing key change for {}: {}", producer, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.learnerview.simplydone.service;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.util.Timeout;
+
+import java.net.SocketTimeoutException;
+
+/** Header and timeout settings shared by every outgoing webhook: job calls, batches and callbacks. */
+public final class WebhookRequests {
+
+    /** Carries the {@link WebhookSigner} signature of the request body. */
+    public static final String SIGNATURE_HEADER = "X-SimplyDone-Signature";
+
+    private WebhookRequests() {
+    }
+
+    /**
+     * Connect, pool-lease and response timeouts all follow the call's timeout. Each applies
+     * to one wait, so callers also cancel the call as a whole at that deadline.
+     */
+    @SuppressWarnings("deprecation") // still honoured per request; ConnectionConfig would make it pool-wide
+    public static RequestConfig timeoutConfig(Timeout timeout) {
+        return RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .setResponseTimeout(timeout)
+                .build();
+    }
+
+    /** The error recorded for a call cancelled at its deadline. */
+    public static SocketTimeoutException deadlineExceeded(Timeout timeout) {
+        return new SocketTimeoutException("Webhook call exceeded its " + timeout.toSeconds() + " s timeout");
+    }
+}
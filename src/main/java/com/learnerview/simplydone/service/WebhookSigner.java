@@ -0,0 +1,108 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.repository.ApiKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signs webhook bodies with HMAC-SHA256 under the producer's newest active API key, cached per producer.
+ */
+@Service
+@Profile("worker")
+@Slf4j
+public class WebhookSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final HexFormat HEX = HexFormat.of();
+    private static final ThreadLocal<KeyedMac> MACS = ThreadLocal.withInitial(KeyedMac::new);
+
+    private final ApiKeyRepository apiKeyRepo;
+    private final long ttlMs;
+    private final ConcurrentHashMap<String, CachedKey> keys = new ConcurrentHashMap<>();
+    /** Bumped on every invalidation so a lookup that raced with it does not cache the old key. */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** {@code key} is null when the producer has no active key, so its jobs go out unsigned. */
+    private record CachedKey(SecretKeySpec key, long expiresAt) {
+    }
+
+    private static final class KeyedMac {
+        final Mac mac;
+        SecretKeySpec key;
+
+        KeyedMac() {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(ALGORITHM + " is not available", e);
+            }
+        }
+    }
+
+    public WebhookSigner(ApiKeyRepository apiKeyRepo, SchedulerProperties props) {
+        this.apiKeyRepo = apiKeyRepo;
+        this.ttlMs = props.getSigning().getKeyCacheTtlSeconds() * 1000L;
+    }
+
+    /**
+     * Returns the signature header value for exactly these bytes, or null when the producer has
+     * no active key.
+     */
+    public String sign(String producer, byte[] body) {
+        SecretKeySpec key = keyFor(producer);
+        if (key == null) return null;
+
+        KeyedMac keyed = MACS.get();
+        try {
+            if (keyed.key != key) {
+                keyed.mac.init(key);
+                keyed.key = key;
+            }
+        } catch (InvalidKeyException e) {
+            keyed.key = null;
+            log.error("Failed to initialise HMAC for producer {}", producer, e);
+            return null;
+        }
+        // doFinal leaves the Mac initialised with the same key, ready for the next body.
+        return "sha256=" + HEX.formatHex(keyed.mac.doFinal(body));
+    }
+
+    public void invalidate(String producer) {
+        generation.incrementAndGet();
+        keys.remove(producer);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        keys.clear();
+    }
+
+    private SecretKeySpec keyFor(String producer) {
+        if (producer == null) return null;
+        long now = System.currentTimeMillis();
+        CachedKey cached = keys.get(producer);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.key();
+        }
+
+        long loadedAt = generation.get();
+        SecretKeySpec key = apiKeyRepo.findFirstByProducerAndActiveTrueOrderByCreatedAtDesc(producer)
+                .map(apiKey -> new SecretKeySpec(apiKey.getApiKey().getBytes(StandardCharsets.UTF_8), ALGORITHM))
+                .orElse(null);
+        if (generation.get() == loadedAt) {
+            keys.put(producer, new CachedKey(key, now + ttlMs));
+        }
+        return key;
+    }
+}
@@ -9,47 +9,158 @@ import com.learnerview.simplydone.service.RetryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 
+/**
+ * Promotes due retries and recovers jobs whose worker lease ran out. With leader election on, the lease
+ * holder runs each sweep and, when backlogged, lets other workers help with id-range partitions.
+ */
 @Service
 @Profile("worker")
 @Slf4j
 @RequiredArgsConstructor
 public class WorkerMaintenanceService {
 
+    static final String RETRY_PROMOTER = "sweep:retry-promoter";
+    static final String LEASE_REAPER = "sweep:lease-reaper";
+    /** Partitions are ranges of the job id's first hex digit. */
+    private static final int MAX_PARTITIONS = 16;
+    private static final String HEX_DIGITS = "0123456789abcdef";
+    /** Sorts after every UUID, so the last partition is open-ended. */
+    private static final String AFTER_LAST_ID = "g";
+
+    /** One batch of a sweep over one partition; returns how many rows it handled. */
+    private interface Batch {
+        int run(int partition, int partitions, int limit);
+    }
+
+    private enum Drained { CAUGHT_UP, BACKLOGGED, LEASE_LOST }
+
     private final JobEntityRepository jobRepo;
     private final QueueRepository queueRepo;
     private final RetryService retryService;
+    private final RedisModeController redisMode;
+    private final ClusterLeaseService leases;
     private final SchedulerProperties props;
+    /** Partition this worker last helped with per sweep, tried first so helpers keep their partitions. */
+    private final Map<String, Integer> helpedPartition = new ConcurrentHashMap<>();
 
     @Scheduled(fixedDelayString = "${simplydone.worker.retry-promoter-interval-ms:1000}")
     public void promoteRetries() {
-        List<JobEntity> due = jobRepo.findTop100ByStatusAndNextRunAtLessThanEqualOrderByNextRunAtAsc(
-                JobStatus.RETRY_SCHEDULED, Instant.now());
+        sweep(RETRY_PROMOTER, this::promoteBatch);
+    }
+
+    @Scheduled(fixedDelayString = "${simplydone.worker.lease-reaper-interval-ms:5000}")
+    public void recoverExpiredLeases() {
+        sweep(LEASE_REAPER, this::recoverBatch);
+    }
+
+    private int promoteBatch(int partition, int partitions, int limit) {
+        List<JobEntity> due = jobRepo.findDueInPartition(
+                JobStatus.RETRY_SCHEDULED, Instant.now(), lowerId(partition, partitions), lowerId(partition + 1, partitions),
+                PageRequest.of(0, limit));
 
         for (JobEntity job : due) {
             job.setStatus(JobStatus.QUEUED);
             jobRepo.save(job);
+            if (!redisMode.isRedisAvailable()) continue;
             try {
-                queueRepo.enqueue(job.getId(), job.getPriority(), job.getNextRunAt().toEpochMilli());
+                queueRepo.enqueue(job.getId(), job.getProducer(), job.getPriority(), job.getNextRunAt().toEpochMilli());
             } catch (RuntimeException e) {
                 log.warn("Redis queue unavailable while promoting retry for job {}: {}", job.getId(), e.getMessage());
             }
         }
+        return due.size();
     }
 
-    @Scheduled(fixedDelayString = "${simplydone.worker.lease-reaper-interval-ms:5000}")
-    public void recoverExpiredLeases() {
-        List<JobEntity> expired = jobRepo.findTop100ByStatusAndVisibleAtBeforeOrderByVisibleAtAsc(
-                JobStatus.RUNNING, Instant.now());
+    private int recoverBatch(int partition, int partitions, int limit) {
+        List<JobEntity> expired = jobRepo.findExpiredInPartition(
+                JobStatus.RUNNING, Instant.now(), lowerId(partition, partitions), lowerId(partition + 1, partitions),
+                PageRequest.of(0, limit));
 
         for (JobEntity job : expired) {
             log.warn("Recovering expired lease for job {}", job.getId());
             retryService.handleFailure(job, "Worker lease expired", 0L);
         }
+        return expired.size();
+    }
+
+    /** Smallest id in the partition; the first starts below every id and {@code partitions} is past the last. */
+    static String lowerId(int partition, int partitions) {
+        if (partition == 0) return "";
+        if (partition >= partitions) return AFTER_LAST_ID;
+        return String.valueOf(HEX_DIGITS.charAt(partition * MAX_PARTITIONS / partitions));
+    }
+
+    private void sweep(String name, Batch batch) {
+        SchedulerProperties.Worker.Sweep sweep = props.getWorker().getSweep();
+        if (!sweep.isLeaderElection()) {
+            drain(batch, 0, 1, sweep, () -> true);
+            return;
+        }
+        int partitions = Math.min(MAX_PARTITIONS, Math.max(1, sweep.getPartitions()));
+        String help = name + ":help";
+        boolean helped = partitions > 1 && leases.isHeld(help);
+
+        if (leases.tryHold(name, sweep.getLeaseMs())) {
+            BooleanSupplier renewLeader = () -> leases.tryHold(name, sweep.getLeaseMs());
+            Drained drained = drain(batch, 0, helped ? partitions : 1, sweep, renewLeader);
+            if (drained == Drained.LEASE_LOST) return;
+            boolean backlogged = drained == Drained.BACKLOGGED;
+            if (helped) {
+                for (int partition = 1; partition < partitions; partition++) {
+                    if (!renewLeader.getAsBoolean()) return;
+                    String partitionLease = name + ":" + partition;
+                    if (!leases.tryHold(partitionLease, sweep.getLeaseMs())) continue;
+                    backlogged |= drain(batch, partition, partitions, sweep,
+                            () -> leases.tryHold(partitionLease, sweep.getLeaseMs())) == Drained.BACKLOGGED;
+                    leases.release(partitionLease);
+                }
+            }
+            if (backlogged && partitions > 1) {
+                if (!helped) log.info("Sweep {} is backlogged, asking other workers to help", name);
+                leases.tryHold(help, sweep.getHelpMs());
+            }
+            return;
+        }
+
+        Integer last = helpedPartition.get(name);
+        if (!helped) {
+            if (last != null) {
+                leases.release(name + ":" + last);
+                helpedPartition.remove(name);
+            }
+            return;
+        }
+        int first = last != null ? last : 1;
+        for (int i = 0; i < partitions - 1; i++) {
+            int partition = 1 + (first - 1 + i) % (partitions - 1);
+            String partitionLease = name + ":" + partition;
+            if (leases.tryHold(partitionLease, sweep.getLeaseMs())) {
+                if (last != null && last != partition) leases.release(name + ":" + last);
+                helpedPartition.put(name, partition);
+                drain(batch, partition, partitions, sweep, () -> leases.tryHold(partitionLease, sweep.getLeaseMs()));
+                return;
+            }
+        }
+    }
+
+    /** Runs batches until one comes back short, the tick's batch budget runs out or {@code renew} fails. */
+    private static Drained drain(Batch batch, int partition, int partitions, SchedulerProperties.Worker.Sweep sweep,
+                                 BooleanSupplier renew) {
+        int limit = Math.max(1, sweep.getBatchSize());
+        for (int i = 0; i < Math.max(1, sweep.getMaxBatchesPerTick()); i++) {
+            if (i > 0 && !renew.getAsBoolean()) return Drained.LEASE_LOST;
+            if (batch.run(partition, partitions, limit) < limit) return Drained.CAUGHT_UP;
+        }
+        return Drained.BACKLOGGED;
     }
 }
@@ -1,29 +1,39 @@
 package com.learnerview.simplydone.service.impl;
 
+import com.learnerview.simplydone.config.SchedulerProperties;
 import com.learnerview.simplydone.dto.ApiKeyRequest;
 import com.learnerview.simplydone.dto.ApiKeyResponse;
 import com.learnerview.simplydone.dto.EmailVerificationSettingsResponse;
+import com.learnerview.simplydone.dto.HostLimitResponse;
 import com.learnerview.simplydone.dto.JobResponse;
+import com.learnerview.simplydone.dto.ProducerWeightResponse;
 import com.learnerview.simplydone.dto.QueueStatsResponse;
 import com.learnerview.simplydone.entity.ApiKeyEntity;
 import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.entity.ProducerWeightEntity;
 import com.learnerview.simplydone.exception.JobNotFoundException;
 import com.learnerview.simplydone.mapper.JobMapper;
 import com.learnerview.simplydone.model.JobPriority;
 import com.learnerview.simplydone.model.JobStatus;
 import com.learnerview.simplydone.repository.ApiKeyRepository;
+import com.learnerview.simplydone.repository.HostLimitRepository;
 import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.ProducerWeightRepository;
 import com.learnerview.simplydone.repository.QueueRepository;
 import com.learnerview.simplydone.service.AdminService;
 import com.learnerview.simplydone.service.EmailVerificationSettingsService;
+import com.learnerview.simplydone.service.RedisModeController;
+import com.learnerview.simplydone.service.SigningKeyChangeNotifier;
 import com.learnerview.simplydone.service.SseEmitterService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -32,6 +42,7 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Slf4j
 public class AdminServiceImpl implements AdminService {
 
     private final JobEntityRepository jobRepo;
@@ -40,6 +51,13 @@ public class AdminServiceImpl implements AdminService {
     private final SseEmitterService sseEmitterService;
     private final ApiKeyRepository apiKeyRepo;
     private final EmailVerificationSettingsService emailVerificationSettingsService;
+    private final RedisModeController redisMode;
+    private final HostLimitRepository hostLimitRepo;
+    private final SchedulerProperties props;
+    private final SigningKeyChangeNotifier signingKeyChanges;
+    private final ProducerWeightRepository producerWeightRepo;
+
+    static final int MAX_PRODUCER_WEIGHT = 1000;
 
     @Override
     @Transactional(readOnly = true)
@@ -64,20 +82,28 @@ public class AdminServiceImpl implements AdminService {
                 .mapToLong(j -> j.getCompletedAt().toEpochMilli() - j.getStartedAt().toEpochMilli())
                 .average().orElse(0.0);
 
-        long highQueueSize;
-        long normalQueueSize;
-        long lowQueueSize;
-        try {
-            highQueueSize = queueRepo.queueSize(JobPriority.HIGH);
-            normalQueueSize = queueRepo.queueSize(JobPriority.NORMAL);
-            lowQueueSize = queueRepo.queueSize(JobPriority.LOW);
-        } catch (RuntimeException e) {
+        long highQueueSize = 0;
+        long normalQueueSize = 0;
+        long lowQueueSize = 0;
+        boolean sizedFromRedis = false;
+        if (redisMode.isRedisAvailable()) {
+            try {
+                highQueueSize = queueRepo.queueSize(JobPriority.HIGH);
+                normalQueueSize = queueRepo.queueSize(JobPriority.NORMAL);
+                lowQueueSize = queueRepo.queueSize(JobPriority.LOW);
+                sizedFromRedis = true;
+            } catch (RuntimeException e) {
+                // Fall through to the DB counts.
+            }
+        }
+        if (!sizedFromRedis) {
             highQueueSize = jobRepo.countByStatusAndPriority(JobStatus.QUEUED, JobPriority.HIGH);
             normalQueueSize = jobRepo.countByStatusAndPriority(JobStatus.QUEUED, JobPriority.NORMAL);
             lowQueueSize = jobRepo.countByStatusAndPriority(JobStatus.QUEUED, JobPriority.LOW);
         }
 
         return QueueStatsResponse.builder()
+            .queueMode(redisMode.mode().name())
             .highQueueSize(highQueueSize)
             .normalQueueSize(normalQueueSize)
             .lowQueueSize(lowQueueSize)
@@ -94,6 +120,14 @@ public class AdminServiceImpl implements AdminService {
                 .build();
     }
 
+    /** Workers that missed three publish intervals are treated as gone. */
+    @Override
+    public List<HostLimitResponse> getHostLimits() {
+        if (!redisMode.isRedisAvailable()) return List.of();
+        Instant freshAfter = Instant.now().minusMillis(props.getHostIsolation().getPublishIntervalMs() * 3);
+        return hostLimitRepo.findReportedSince(freshAfter);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public QueueStatsResponse getStats(String producer) {
@@ -145,10 +179,12 @@ public class AdminServiceImpl implements AdminService {
         job.setCompletedAt(null);
         job.setResult(null);
         jobRepo.save(job);
-        try {
-            queueRepo.enqueue(jobId, job.getPriority(), Instant.now().toEpochMilli());
-        } catch (RuntimeException e) {
-            // Leave the job queued in the DB; the worker will pick it up via DB fallback.
+        if (redisMode.isRedisAvailable()) {
+            try {
+                queueRepo.enqueue(jobId, job.getProducer(), job.getPriority(), Instant.now().toEpochMilli());
+            } catch (RuntimeException e) {
+                // Leave the job queued in the DB; the worker will pick it up via DB fallback.
+            }
         }
         sseEmitterService.broadcast(job.getProducer(), "JOB_UPDATE",
                 Map.of("id", jobId, "status", "QUEUED", "result", "Retried from DLQ"));
@@ -156,6 +192,7 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     public void clearQueues() {
+        if (!redisMode.isRedisAvailable()) return;
         try {
             queueRepo.clearAll();
         } catch (RuntimeException e) {
@@ -186,7 +223,9 @@ public class AdminServiceImpl implements AdminService {
                 .active(true)
                 .createdAt(Instant.now())
                 .build();
-        return toResponse(apiKeyRepo.save(entity));
+        ApiKeyResponse created = toResponse(apiKeyRepo.save(entity));
+        signingKeyChanges.keysChanged(entity.getProducer());
+        return created;
     }
 
     @Override
@@ -194,9 +233,52 @@ public class AdminServiceImpl implements AdminService {
         apiKeyRepo.findById(keyId).ifPresent(key -> {
             key.setActive(false);
             apiKeyRepo.save(key);
+            signingKeyChanges.keysChanged(key.getProducer());
         });
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProducerWeightResponse> listProducerWeights() {
+        return producerWeightRepo.findAll().stream()
+                .map(this::toResponse)
+                .sorted(Comparator.comparing(ProducerWeightResponse::getProducer))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public ProducerWeightResponse setProducerWeight(String producer, int weight) {
+        if (weight < 1 || weight > MAX_PRODUCER_WEIGHT) {
+            throw new IllegalArgumentException("weight must be between 1 and " + MAX_PRODUCER_WEIGHT);
+        }
+        ProducerWeightEntity saved = producerWeightRepo.save(ProducerWeightEntity.builder()
+                .producer(producer)
+                .weight(weight)
+                .updatedAt(Instant.now())
+                .build());
+        if (redisMode.isRedisAvailable()) {
+            try {
+                queueRepo.setProducerWeight(producer, weight);
+            } catch (RuntimeException e) {
+                // The reconciler copies every weight back into Redis when it next runs.
+                log.warn("Could not push weight for producer {} to Redis: {}", producer, e.getMessage());
+            }
+        }
+        return toResponse(saved);
+    }
+
+    @Override
+    public void resetProducerWeight(String producer) {
+        producerWeightRepo.deleteById(producer);
+        if (redisMode.isRedisAvailable()) {
+            try {
+                queueRepo.removeProducerWeight(producer);
+            } catch (RuntimeException e) {
+                log.warn("Could not reset weight for producer {} in Redis: {}", producer, e.getMessage());
+            }
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public EmailVerificationSettingsResponse getEmailVerificationSettings() {
@@ -232,6 +314,14 @@ public class AdminServiceImpl implements AdminService {
                 .build();
     }
 
+    private ProducerWeightResponse toResponse(ProducerWeightEntity e) {
+        return ProducerWeightResponse.builder()
+                .producer(e.getProducer())
+                .weight(e.getWeight())
+                .updatedAt(e.getUpdatedAt())
+                .build();
+    }
+
     /**
      * WHY: Returns a masked key (e.g. sd_sk_****ab3f) for list/audit views.
      * Admins can identify keys by label/producer without seeing live credentials.
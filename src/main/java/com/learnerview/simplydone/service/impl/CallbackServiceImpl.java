@@ -0,0 +1,66 @@
+package com.learnerview.simplydone.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.CallbackDeliveryEntity;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.model.CallbackStatus;
+import com.learnerview.simplydone.repository.CallbackDeliveryRepository;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.service.CallbackService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes completion callbacks to the callback_deliveries outbox together with the job's terminal
+ * status, so a job never ends without its callback row. The cost to the job is one insert.
+ */
+@Service
+@RequiredArgsConstructor
+public class CallbackServiceImpl implements CallbackService {
+
+    private final JobEntityRepository jobRepo;
+    private final CallbackDeliveryRepository callbackRepo;
+    private final ObjectMapper objectMapper;
+    private final SchedulerProperties props;
+
+    @Override
+    @Transactional
+    public void saveCompleted(JobEntity job) {
+        jobRepo.save(job);
+        if (!props.getCallback().isEnabled()) return;
+        if (job.getCallbackUrl() == null || job.getCallbackUrl().isBlank()) return;
+        callbackRepo.save(CallbackDeliveryEntity.builder()
+                .jobId(job.getId())
+                .producer(job.getProducer())
+                .callbackUrl(job.getCallbackUrl())
+                .payload(payload(job))
+                .status(CallbackStatus.PENDING)
+                .nextAttemptAt(Instant.now())
+                .build());
+    }
+
+    private String payload(JobEntity job) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", job.getId());
+        body.put("idempotencyKey", job.getIdempotencyKey());
+        body.put("jobType", job.getJobType());
+        body.put("status", job.getStatus().name());
+        body.put("result", job.getResult());
+        body.put("resultBytes", job.getResultBytes());
+        body.put("resultTruncated", job.isResultTruncated());
+        body.put("attemptCount", job.getAttemptCount());
+        body.put("completedAt", job.getCompletedAt());
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise callback for job " + job.getId(), e);
+        }
+    }
+}
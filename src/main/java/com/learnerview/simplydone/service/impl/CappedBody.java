@@ -0,0 +1,83 @@
+package com.learnerview.simplydone.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps the first {@code captureLimit} bytes of a webhook response body and only counts the rest;
+ * past {@code discardLimit}, {@link #append} tells the caller to drop the connection.
+ */
+final class CappedBody {
+
+    private static final int INITIAL_BUFFER = 8192;
+
+    private final int captureLimit;
+    private final long discardLimit;
+    private final long declaredLength;
+    private final Charset charset;
+    private final ByteArrayOutputStream captured;
+    private long received;
+
+    /** What was kept of a body. {@code length} is the declared length when the body was abandoned. */
+    record Result(String text, long length, boolean truncated) {
+        static final Result EMPTY = new Result(null, 0, false);
+    }
+
+    /** Caps text that is already in memory, such as a batch item's or local handler's result, like a body. */
+    static Result of(String text, int captureLimit) {
+        if (text == null) return Result.EMPTY;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        CappedBody body = new CappedBody(captureLimit, Long.MAX_VALUE, bytes.length, StandardCharsets.UTF_8);
+        body.append(bytes, 0, bytes.length);
+        return body.result(true);
+    }
+
+    /**
+     * @param declaredLength the Content-Length, or a negative value when the body is chunked
+     */
+    CappedBody(int captureLimit, long discardLimit, long declaredLength, Charset charset) {
+        this.captureLimit = captureLimit;
+        this.discardLimit = Math.max(discardLimit, captureLimit);
+        this.declaredLength = declaredLength;
+        this.charset = charset;
+        long expected = declaredLength >= 0 ? declaredLength : INITIAL_BUFFER;
+        this.captured = new ByteArrayOutputStream((int) Math.min(expected, captureLimit));
+    }
+
+    /** Takes the next chunk; false means the body is past the discard limit and should be abandoned. */
+    boolean append(byte[] chunk, int offset, int length) {
+        int keep = (int) Math.min(length, captureLimit - captured.size());
+        if (keep > 0) {
+            captured.write(chunk, offset, keep);
+        }
+        received += length;
+        return received < discardLimit;
+    }
+
+    /** Same as {@link #append(byte[], int, int)}; the buffer is consumed either way. */
+    boolean append(ByteBuffer chunk) {
+        int length = chunk.remaining();
+        int keep = (int) Math.min(length, captureLimit - captured.size());
+        if (keep > 0 && chunk.hasArray()) {
+            captured.write(chunk.array(), chunk.arrayOffset() + chunk.position(), keep);
+        } else if (keep > 0) {
+            byte[] kept = new byte[keep];
+            chunk.get(kept);
+            captured.write(kept, 0, keep);
+        }
+        chunk.position(chunk.limit());
+        received += length;
+        return received < discardLimit;
+    }
+
+    /**
+     * @param complete the whole body was read; otherwise the length is the declared one if there
+     *                 was one, or a lower bound
+     */
+    Result result(boolean complete) {
+        long length = complete || declaredLength < 0 ? received : Math.max(declaredLength, received);
+        return new Result(captured.toString(charset), length, length > captured.size());
+    }
+}
@@ -1,36 +1,64 @@
 package com.learnerview.simplydone.service.impl;
 
+import com.learnerview.simplydone.config.SchedulerProperties;
 import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.exception.HostUnavailableException;
 import com.learnerview.simplydone.model.JobStatus;
-import com.learnerview.simplydone.repository.ApiKeyRepository;
 import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.service.CallbackService;
+import com.learnerview.simplydone.service.HostIsolationService;
+import com.learnerview.simplydone.service.JobDurationEstimator;
 import com.learnerview.simplydone.service.JobExecutorService;
+import com.learnerview.simplydone.service.JobHandler;
+import com.learnerview.simplydone.service.JobHandlerRegistry;
 import com.learnerview.simplydone.service.RetryService;
 import com.learnerview.simplydone.service.SseEmitterService;
-import io.github.resilience4j.bulkhead.annotation.Bulkhead;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import com.learnerview.simplydone.service.WebhookRequests;
+import com.learnerview.simplydone.service.WebhookSigner;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Profile;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.HexFormat;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Executes jobs by dispatching HTTP POST requests to the client's configured endpoint.
- * Protected by Resilience4j CircuitBreaker and Bulkhead to prevent cascade failures.
- * Attaches an HMAC-SHA256 signature header so clients can verify webhook authenticity.
+ * Executes jobs by POSTing a signed request to the client's endpoint, blocking or asynchronously,
+ * guarded per host. BATCH_HTTP jobs go to the {@link WebhookBatcher}; LOCAL jobs run their {@link JobHandler}.
  */
 @Service
 @Profile("worker")
@@ -41,86 +69,392 @@ public class JobExecutorServiceImpl implements JobExecutorService {
     private final JobEntityRepository jobRepo;
     private final RetryService retryService;
     private final SseEmitterService sseEmitterService;
-    private final ApiKeyRepository apiKeyRepo;
+    private final CloseableHttpClient webhookHttpClient;
+    private final ObjectProvider<CloseableHttpAsyncClient> webhookAsyncHttpClient;
+    private final ObjectProvider<ExecutorService> webhookCompletionExecutor;
+    private final HostIsolationService hostIsolation;
+    private final WebhookSigner signer;
+    private final SchedulerProperties props;
+    private final CallbackService callbackService;
+    private final WebhookBatcher batcher;
+    private final JobHandlerRegistry handlers;
+    private final JobDurationEstimator durations;
 
-    /** Computes HMAC-SHA256 hex digest of the payload using the producer's API key. */
-    private String computeHmacSha256(String data, String key) {
+    private static final String BATCH_HTTP = "BATCH_HTTP";
+    private static final String LOCAL = "LOCAL";
+    private static final int READ_CHUNK = 8192;
+
+    /** Cancels calls that outlive their job's timeout; the tasks only flip a flag and abort the call. */
+    private final ScheduledExecutorService callDeadlines =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("webhook-deadline-"));
+
+    /**
+     * Everything the HTTP call needs; built once, so both execution modes send the same request.
+     * {@code body} holds the exact bytes the signature covers.
+     */
+    private record WebhookRequest(String endpoint, String host, byte[] body, String signature, Timeout timeout) {
+    }
+
+    /** A prepared request holding a call slot on its destination host. */
+    private record Admission(WebhookRequest webhook, HostIsolationService.Permit permit) {
+    }
+
+    private record WebhookResponse(int status, CappedBody.Result body) {
+        boolean is2xxSuccessful() {
+            return status >= 200 && status < 300;
+        }
+    }
+
+    /** Thrown from the async consumer to drop a connection whose body is past the discard limit. */
+    private static final class BodyAbandoned extends IOException {
+        private final transient WebhookResponse response;
+
+        BodyAbandoned(WebhookResponse response) {
+            super("Response body exceeded " + response.body().length() + " bytes", null);
+            this.response = response;
+        }
+    }
+
+    /** Streams the body into a {@link CappedBody} on the I/O thread instead of buffering all of it. */
+    private final class CappedResponseConsumer extends AbstractBinResponseConsumer<WebhookResponse> {
+        private int status;
+        private CappedBody body;
+
+        @Override
+        protected void start(HttpResponse response, ContentType contentType) {
+            status = response.getCode();
+            Header length = response.getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+            body = newBody(length != null ? parseLength(length.getValue()) : -1, contentType);
+        }
+
+        @Override
+        protected int capacityIncrement() {
+            return READ_CHUNK;
+        }
+
+        @Override
+        protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+            if (!body.append(src)) {
+                throw new BodyAbandoned(new WebhookResponse(status, body.result(false)));
+            }
+        }
+
+        @Override
+        protected WebhookResponse buildResult() {
+            return new WebhookResponse(status, body != null ? body.result(true) : CappedBody.Result.EMPTY);
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callDeadlines.shutdownNow();
+    }
+
+    @Override
+    public void execute(JobEntity job) {
+        long start = System.currentTimeMillis();
+        WebhookResponse response = null;
+        Throwable error = null;
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] hash = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
+            if (isLocal(job)) {
+                response = runLocal(job);
+            } else if (isBatched(job)) {
+                response = sendBatched(job).join();
+            } else {
+                response = send(admit(job));
+            }
         } catch (Exception e) {
-            log.error("Failed to calculate HMAC", e);
-            return "";
+            error = e;
         }
+        finish(job, response, error, start);
     }
 
+    /**
+     * Preparation and completion run on the completion pool because they touch the database.
+     * BATCH_HTTP jobs take this path in every execution mode.
+     */
     @Override
-    @CircuitBreaker(name = "externalHttpExecutor")
-    @Bulkhead(name = "externalHttpExecutor", type = Bulkhead.Type.SEMAPHORE)
-    public void execute(JobEntity job) {
+    public CompletableFuture<Void> executeAsync(JobEntity job) {
+        CloseableHttpAsyncClient client = webhookAsyncHttpClient.getIfAvailable();
+        ExecutorService completions = webhookCompletionExecutor.getIfAvailable();
+        if (isBatched(job)) {
+            long start = System.currentTimeMillis();
+            CompletableFuture<WebhookResponse> sent = sendBatched(job);
+            return completions != null
+                    ? sent.handleAsync((response, error) -> finish(job, response, error, start), completions)
+                    : sent.handle((response, error) -> finish(job, response, error, start));
+        }
+        if (client == null || completions == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Async execution requires simplydone.worker.execution-mode=async"));
+        }
+
+        if (isLocal(job)) {
+            return CompletableFuture.runAsync(() -> execute(job), completions);
+        }
+        long start = System.currentTimeMillis();
+        return CompletableFuture
+                .supplyAsync(() -> admit(job), completions)
+                .thenCompose(admission -> sendAsync(client, admission))
+                .handleAsync((response, error) -> finish(job, response, error, start), completions);
+    }
+
+    /**
+     * Records the outcome of a call. A job whose host could not take it is not charged: it goes
+     * back to its queue when the host was only busy, and is deferred when the host is failing.
+     */
+    private Void finish(JobEntity job, WebhookResponse response, Throwable error, long start) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        if (cause instanceof HostUnavailableException deferral) {
+            if (deferral.isBusy()) {
+                retryService.requeue(job, deferral.getDeferMs());
+            } else {
+                retryService.defer(job, deferral.getDeferMs(), deferral.getMessage());
+            }
+            return null;
+        }
+        durations.record(job, System.currentTimeMillis() - start);
+        if (cause != null) {
+            recordFailure(job, cause, start);
+        } else {
+            complete(job, response, start);
+        }
+        return null;
+    }
+
+    private static boolean isLocal(JobEntity job) {
+        return LOCAL.equalsIgnoreCase(job.getExecutionType());
+    }
+
+    private static boolean isBatched(JobEntity job) {
+        return BATCH_HTTP.equalsIgnoreCase(job.getExecutionType());
+    }
+
+    /** A local run that returns is recorded like a 200 response carrying the handler's result. */
+    private WebhookResponse runLocal(JobEntity job) throws Exception {
+        JobHandler handler = handlers.find(job.getJobType())
+                .orElseThrow(() -> new IllegalArgumentException("No local handler for jobType: " + job.getJobType()));
+        broadcastStarted(job);
+        return new WebhookResponse(200, CappedBody.of(handler.handle(job), props.getHttp().getMaxResultBytes()));
+    }
+
+    /** A successful batch item is recorded like a 200 response carrying the item's result. */
+    private CompletableFuture<WebhookResponse> sendBatched(JobEntity job) {
+        if (job.getExecutionEndpoint() == null || job.getExecutionEndpoint().isBlank()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Missing execution endpoint for job " + job.getId()));
+        }
+        broadcastStarted(job);
+        return batcher.submit(job).thenApply(result -> new WebhookResponse(200, result));
+    }
+
+    private void broadcastStarted(JobEntity job) {
         sseEmitterService.broadcast(job.getProducer(), "JOB_STARTED", Map.of(
                 "id", job.getId(), "jobType", job.getJobType(), "status", "RUNNING",
                 "priority", job.getPriority().name()
         ));
+    }
 
-        long start = System.currentTimeMillis();
+    /**
+     * Prepares the request and takes a slot on the destination host. Throws
+     * {@link HostUnavailableException} when the host's breaker is open or it is at its concurrency limit.
+     */
+    private Admission admit(JobEntity job) {
+        WebhookRequest webhook = prepare(job);
+        HostIsolationService.Permit permit = hostIsolation.acquire(webhook.host());
+        broadcastStarted(job);
+        return new Admission(webhook, permit);
+    }
+
+    /** Validates the job and resolves the payload and signature before any connection is used. */
+    private WebhookRequest prepare(JobEntity job) {
+        String executionType = job.getExecutionType() != null ? job.getExecutionType().toUpperCase() : "HTTP";
+        if (!"HTTP".equals(executionType)) {
+            throw new IllegalArgumentException("Unsupported execution type: " + executionType);
+        }
+        if (job.getExecutionEndpoint() == null || job.getExecutionEndpoint().isBlank()) {
+            throw new IllegalArgumentException("Missing execution endpoint for job " + job.getId());
+        }
+
+        Timeout timeout = Timeout.ofSeconds(job.getTimeoutSeconds() != null ? job.getTimeoutSeconds() : 10);
+        byte[] body = (job.getPayload() != null ? job.getPayload() : "{}").getBytes(StandardCharsets.UTF_8);
+        String signature = signer.sign(job.getProducer(), body);
+        String host = HostIsolationService.hostOf(job.getExecutionEndpoint());
+        if (host == null) {
+            throw new IllegalArgumentException("Execution endpoint has no host: " + job.getExecutionEndpoint());
+        }
+        return new WebhookRequest(job.getExecutionEndpoint(), host, body, signature, timeout);
+    }
+
+    private WebhookResponse send(Admission admission) throws IOException {
+        WebhookRequest webhook = admission.webhook();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = null;
+        WebhookResponse response;
         try {
-            String executionType = job.getExecutionType() != null ? job.getExecutionType().toUpperCase() : "HTTP";
-            if (!"HTTP".equals(executionType)) {
-                throw new IllegalArgumentException("Unsupported execution type: " + executionType);
+            HttpPost request = new HttpPost(webhook.endpoint());
+            request.setConfig(WebhookRequests.timeoutConfig(webhook.timeout()));
+            request.setEntity(new ByteArrayEntity(webhook.body(), ContentType.APPLICATION_JSON));
+            if (webhook.signature() != null) {
+                request.setHeader(WebhookRequests.SIGNATURE_HEADER, webhook.signature());
             }
-            if (job.getExecutionEndpoint() == null || job.getExecutionEndpoint().isBlank()) {
-                throw new IllegalArgumentException("Missing execution endpoint for job " + job.getId());
+
+            deadline = cancelAtDeadline(webhook.timeout(), timedOut, request::cancel);
+            response = webhookHttpClient.execute(request, httpResponse -> readCapped(request, httpResponse));
+        } catch (IOException | RuntimeException e) {
+            if (timedOut.get()) {
+                IOException expired = WebhookRequests.deadlineExceeded(webhook.timeout());
+                admission.permit().failed(expired);
+                throw expired;
             }
+            admission.permit().failed(e);
+            throw e;
+        } finally {
+            if (deadline != null) deadline.cancel(false);
+        }
+        admission.permit().completed(response.status());
+        return response;
+    }
 
-            int timeoutSeconds = job.getTimeoutSeconds() != null ? job.getTimeoutSeconds() : 10;
-            SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-            requestFactory.setConnectTimeout(timeoutSeconds * 1000);
-            requestFactory.setReadTimeout(timeoutSeconds * 1000);
-            RestTemplate restTemplate = new RestTemplate(requestFactory);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            String payload = job.getPayload() != null ? job.getPayload() : "{}";
-            
-            apiKeyRepo.findFirstByProducerAndActiveTrueOrderByCreatedAtDesc(job.getProducer())
-                    .ifPresent(apiKey -> {
-                        String hmac = computeHmacSha256(payload, apiKey.getApiKey());
-                        if (!hmac.isEmpty()) {
-                            headers.set("X-SimplyDone-Signature", "sha256=" + hmac);
-                        }
-                    });
-
-            HttpEntity<String> request = new HttpEntity<>(payload, headers);
-
-            ResponseEntity<String> response = restTemplate.postForEntity(job.getExecutionEndpoint(), request, String.class);
-            long durationMs = System.currentTimeMillis() - start;
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                job.setStatus(JobStatus.SUCCESS);
-                job.setResult(response.getBody());
-                job.setVisibleAt(null);
-                job.setLeaseOwner(null);
-                job.setLeaseToken(null);
-                job.setCompletedAt(Instant.now());
-                jobRepo.save(job);
-
-                retryService.logSuccess(job, response.getBody(), durationMs);
-                sseEmitterService.broadcast(job.getProducer(), "JOB_COMPLETED", Map.of(
-                        "id", job.getId(), "jobType", job.getJobType(), "status", "SUCCESS",
-                        "result", response.getBody() != null ? response.getBody() : "",
-                        "durationMs", durationMs
-                ));
-            } else {
-                retryService.handleFailure(job, "HTTP " + response.getStatusCode().value(), durationMs);
+    /**
+     * The client's timeouts apply to each connect, pool wait and read on their own, so a body
+     * trickling in can keep a call going far past the job's timeout. This bounds the whole call.
+     */
+    private ScheduledFuture<?> cancelAtDeadline(Timeout timeout, AtomicBoolean timedOut, Runnable cancel) {
+        return callDeadlines.schedule(() -> {
+            timedOut.set(true);
+            cancel.run();
+        }, timeout.toMilliseconds(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Keeps the first max-result-bytes of the body and counts the rest. Reading to the end lets the
+     * client return the connection to the pool; a body past max-response-bytes is abandoned by
+     * cancelling the request, which closes the connection instead.
+     */
+    private WebhookResponse readCapped(HttpPost request, ClassicHttpResponse httpResponse) throws IOException {
+        HttpEntity entity = httpResponse.getEntity();
+        if (entity == null) {
+            return new WebhookResponse(httpResponse.getCode(), CappedBody.Result.EMPTY);
+        }
+        CappedBody body = newBody(entity.getContentLength(), ContentType.parseLenient(entity.getContentType()));
+        InputStream in = entity.getContent();
+        byte[] chunk = new byte[READ_CHUNK];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            if (!body.append(chunk, 0, read)) {
+                request.cancel();
+                return new WebhookResponse(httpResponse.getCode(), body.result(false));
             }
-        } catch (Exception e) {
-            long durationMs = System.currentTimeMillis() - start;
-            retryService.handleFailure(job,
-                    e.getMessage() != null ? e.getMessage() : "Unknown error", durationMs);
         }
+        return new WebhookResponse(httpResponse.getCode(), body.result(true));
+    }
+
+    private CappedBody newBody(long declaredLength, ContentType contentType) {
+        Charset charset = contentType != null ? contentType.getCharset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+        return new CappedBody(props.getHttp().getMaxResultBytes(), props.getHttp().getMaxResponseBytes(),
+                declaredLength, charset);
+    }
+
+    private static long parseLength(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private CompletableFuture<WebhookResponse> sendAsync(CloseableHttpAsyncClient client, Admission admission) {
+        WebhookRequest webhook = admission.webhook();
+        CompletableFuture<WebhookResponse> result = new CompletableFuture<>();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        try {
+            SimpleRequestBuilder builder = SimpleRequestBuilder.post(webhook.endpoint())
+                    .setRequestConfig(WebhookRequests.timeoutConfig(webhook.timeout()))
+                    .setBody(webhook.body(), ContentType.APPLICATION_JSON);
+            if (webhook.signature() != null) {
+                builder.setHeader(WebhookRequests.SIGNATURE_HEADER, webhook.signature());
+            }
+            FutureCallback<WebhookResponse> callback = new FutureCallback<>() {
+                @Override
+                public void completed(WebhookResponse response) {
+                    admission.permit().completed(response.status());
+                    result.complete(response);
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    if (e instanceof BodyAbandoned abandoned) {
+                        completed(abandoned.response);
+                        return;
+                    }
+                    admission.permit().failed(e);
+                    result.completeExceptionally(e);
+                }
+
+                @Override
+                public void cancelled() {
+                    Exception e = timedOut.get() ? WebhookRequests.deadlineExceeded(webhook.timeout())
+                            : new CancellationException("Webhook call cancelled");
+                    admission.permit().failed(e);
+                    result.completeExceptionally(e);
+                }
+            };
+            Future<WebhookResponse> call = client.execute(
+                    SimpleRequestProducer.create(builder.build()), new CappedResponseConsumer(), callback);
+            ScheduledFuture<?> deadline = cancelAtDeadline(webhook.timeout(), timedOut, () -> call.cancel(true));
+            result.whenComplete((response, error) -> deadline.cancel(false));
+        } catch (RuntimeException e) {
+            admission.permit().failed(e);
+            throw e;
+        }
+        return result;
+    }
+
+    /** A failure while recording success is handled like a failed call, as it always has been. */
+    private void complete(JobEntity job, WebhookResponse response, long start) {
+        try {
+            recordOutcome(job, response, start);
+        } catch (RuntimeException e) {
+            recordFailure(job, e, start);
+        }
+    }
+
+    private void recordOutcome(JobEntity job, WebhookResponse response, long start) {
+        long durationMs = System.currentTimeMillis() - start;
+        if (!response.is2xxSuccessful()) {
+            retryService.handleFailure(job, "HTTP " + response.status(), durationMs);
+            return;
+        }
+
+        CappedBody.Result body = response.body();
+        job.setStatus(JobStatus.SUCCESS);
+        job.setResult(body.text());
+        job.setResultBytes(body.length());
+        job.setResultTruncated(body.truncated());
+        job.setVisibleAt(null);
+        job.setLeaseOwner(null);
+        job.setLeaseToken(null);
+        job.setCompletedAt(Instant.now());
+        callbackService.saveCompleted(job);
+
+        retryService.logSuccess(job, body.text(), durationMs);
+        sseEmitterService.broadcast(job.getProducer(), "JOB_COMPLETED", Map.of(
+                "id", job.getId(), "jobType", job.getJobType(), "status", "SUCCESS",
+                "result", body.text() != null ? body.text() : "",
+                "resultBytes", body.length(), "resultTruncated", body.truncated(),
+                "durationMs", durationMs
+        ));
+    }
+
+    private void recordFailure(JobEntity job, Throwable error, long start) {
+        long durationMs = System.currentTimeMillis() - start;
+        retryService.handleFailure(job,
+                error.getMessage() != null ? error.getMessage() : "Unknown error", durationMs);
     }
 }
@@ -12,8 +12,11 @@ import com.learnerview.simplydone.model.JobPriority;
 import com.learnerview.simplydone.model.JobStatus;
 import com.learnerview.simplydone.repository.JobEntityRepository;
 import com.learnerview.simplydone.repository.QueueRepository;
+import com.learnerview.simplydone.service.CallbackService;
+import com.learnerview.simplydone.service.JobHandlerRegistry;
 import com.learnerview.simplydone.service.JobSubmissionService;
 import com.learnerview.simplydone.service.RateLimiterService;
+import com.learnerview.simplydone.service.RedisModeController;
 import com.learnerview.simplydone.service.SseEmitterService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +26,7 @@ import org.springframework.stereotype.Service;
 import java.time.Instant;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import org.springframework.dao.DataAccessException;
@@ -39,16 +43,27 @@ public class JobSubmissionServiceImpl implements JobSubmissionService {
     private final SchedulerProperties props;
     private final JobMapper jobMapper;
     private final SseEmitterService sseEmitterService;
+    private final RedisModeController redisMode;
+    private final CallbackService callbackService;
+    private final JobHandlerRegistry handlers;
 
     @Override
     public JobSubmissionResponse submit(String producer, JobSubmissionRequest req) {
         rateLimiter.checkRateLimit(producer);
 
-        if (!"HTTP".equalsIgnoreCase(req.getExecution().getType())) {
+        String executionType = req.getExecution().getType().toUpperCase(Locale.ROOT);
+        if ("LOCAL".equals(executionType)) {
+            if (handlers.find(req.getJobType()).isEmpty()) {
+                throw new IllegalArgumentException("No local handler for jobType: " + req.getJobType());
+            }
+        } else if ("HTTP".equals(executionType) || "BATCH_HTTP".equals(executionType)) {
+            if (req.getExecution().getEndpoint() == null || req.getExecution().getEndpoint().isBlank()) {
+                throw new IllegalArgumentException("execution.endpoint is required");
+            }
+            validateHttpUrl(req.getExecution().getEndpoint(), "execution.endpoint");
+        } else {
             throw new IllegalArgumentException("Unsupported execution.type: " + req.getExecution().getType());
         }
-
-        validateHttpUrl(req.getExecution().getEndpoint(), "execution.endpoint");
         if (req.getCallbackUrl() != null && !req.getCallbackUrl().isBlank()) {
             validateHttpUrl(req.getCallbackUrl(), "callbackUrl");
         }
@@ -82,7 +97,7 @@ public class JobSubmissionServiceImpl implements JobSubmissionService {
                 .status(JobStatus.QUEUED)
                 .priority(priority)
                 .payload(jobMapper.serializePayload(req.getPayload()))
-            .executionType(req.getExecution().getType())
+            .executionType(executionType)
             .executionEndpoint(req.getExecution().getEndpoint())
             .timeoutSeconds(req.getTimeoutSeconds())
             .callbackUrl(req.getCallbackUrl())
@@ -91,10 +106,12 @@ public class JobSubmissionServiceImpl implements JobSubmissionService {
                 .build();
 
         jobRepo.save(job);
-        try {
-            queueRepo.enqueue(jobId, priority, nextRunAt.toEpochMilli());
-        } catch (RuntimeException e) {
-            log.warn("Redis queue unavailable for job {}, keeping DB fallback only: {}", jobId, e.getMessage());
+        if (redisMode.isRedisAvailable()) {
+            try {
+                queueRepo.enqueue(jobId, producer, priority, nextRunAt.toEpochMilli());
+            } catch (RuntimeException e) {
+                log.warn("Redis queue unavailable for job {}, keeping DB fallback only: {}", jobId, e.getMessage());
+            }
         }
         log.info("Job submitted: {} type={} priority={}", jobId, req.getJobType(), priority);
 
@@ -134,10 +151,13 @@ public class JobSubmissionServiceImpl implements JobSubmissionService {
         JobEntity job = jobRepo.findByProducerAndId(producer, jobId)
                 .orElseThrow(() -> new JobNotFoundException(jobId));
         if (job.getStatus() == JobStatus.QUEUED) {
-            try {
-                queueRepo.remove(jobId, job.getPriority());
-            } catch (RuntimeException e) {
-                log.warn("Redis queue unavailable while cancelling job {}: {}", jobId, e.getMessage());
+            // A member left behind in Redis is harmless: the lease only accepts QUEUED rows.
+            if (redisMode.isRedisAvailable()) {
+                try {
+                    queueRepo.remove(jobId, producer, job.getPriority());
+                } catch (RuntimeException e) {
+                    log.warn("Redis queue unavailable while cancelling job {}: {}", jobId, e.getMessage());
+                }
             }
             job.setStatus(JobStatus.CANCELLED);
             job.setVisibleAt(null);
@@ -145,7 +165,7 @@ public class JobSubmissionServiceImpl implements JobSubmissionService {
             job.setLeaseToken(null);
             job.setResult("Cancelled by user");
             job.setCompletedAt(Instant.now());
-            jobRepo.save(job);
+            callbackService.saveCompleted(job);
             sseEmitterService.broadcast(producer, "JOB_UPDATE", Map.of(
                     "id", jobId, "status", "CANCELLED", "result", "Cancelled by user"
             ));
@@ -183,16 +203,21 @@ public class JobSubmissionServiceImpl implements JobSubmissionService {
         job.setCompletedAt(null);
         job.setResult(null);
         jobRepo.save(job);
-        try {
-            queueRepo.enqueue(jobId, job.getPriority(), Instant.now().toEpochMilli());
-        } catch (RuntimeException e) {
-            log.warn("Redis queue unavailable while retrying DLQ job {}: {}", jobId, e.getMessage());
+        if (redisMode.isRedisAvailable()) {
+            try {
+                queueRepo.enqueue(jobId, job.getProducer(), job.getPriority(), Instant.now().toEpochMilli());
+            } catch (RuntimeException e) {
+                log.warn("Redis queue unavailable while retrying DLQ job {}: {}", jobId, e.getMessage());
+            }
         }
         sseEmitterService.broadcast(producer, "JOB_UPDATE",
                 Map.of("id", jobId, "status", "QUEUED", "result", "Retried from DLQ"));
     }
 
     private long getTotalQueueDepthWithFallback() {
+        if (!redisMode.isRedisAvailable()) {
+            return jobRepo.countByStatus(JobStatus.QUEUED);
+        }
         try {
             return queueRepo.queueSize(JobPriority.HIGH)
                     + queueRepo.queueSize(JobPriority.NORMAL)
@@ -3,6 +3,7 @@ package com.learnerview.simplydone.service.impl;
 import com.learnerview.simplydone.config.SchedulerProperties;
 import com.learnerview.simplydone.exception.RateLimitExceededException;
 import com.learnerview.simplydone.service.RateLimiterService;
+import com.learnerview.simplydone.service.RedisModeController;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.retry.Retry;
@@ -25,13 +26,15 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class RateLimiterServiceImpl implements RateLimiterService {
 
     private final StringRedisTemplate redis;
+    private final RedisModeController redisMode;
     private final int maxRequests;
     private final long windowMs;
     private final Retry redisRetry;
     private final CircuitBreaker redisCircuitBreaker;
 
-    public RateLimiterServiceImpl(StringRedisTemplate redis, SchedulerProperties props) {
+    public RateLimiterServiceImpl(StringRedisTemplate redis, RedisModeController redisMode, SchedulerProperties props) {
         this.redis = redis;
+        this.redisMode = redisMode;
         this.maxRequests = props.getRateLimit().getRequestsPerMinute();
         this.windowMs = props.getRateLimit().getWindowSeconds() * 1000L;
         this.fallbackLimit = Math.max(1, this.maxRequests / 10);
@@ -62,6 +65,11 @@ public class RateLimiterServiceImpl implements RateLimiterService {
         String key = "simplydone:ratelimit:" + producer;
         long now = System.currentTimeMillis();
 
+        if (!redisMode.isRedisAvailable()) {
+            useFallbackRateLimit(producer, now);
+            return;
+        }
+
         try {
             Runnable guarded = CircuitBreaker.decorateRunnable(redisCircuitBreaker,
                     Retry.decorateRunnable(redisRetry, () -> runRedisRateLimit(key, producer, now)));
@@ -9,6 +9,7 @@ import com.learnerview.simplydone.service.EmailService;
 import com.learnerview.simplydone.service.EmailVerificationSettingsService;
 import com.learnerview.simplydone.service.OtpService;
 import com.learnerview.simplydone.service.RegistrationService;
+import com.learnerview.simplydone.service.SigningKeyChangeNotifier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,6 +33,7 @@ public class RegistrationServiceImpl implements RegistrationService {
     private final EmailService emailService;
     private final EmailVerificationSettingsService emailVerificationSettingsService;
     private final OtpService otpService;
+    private final SigningKeyChangeNotifier signingKeyChanges;
 
     @Value("${simplydone.registration.otp-validity-minutes:10}")
     private int otpValidityMinutes;
@@ -258,6 +260,7 @@ public class RegistrationServiceImpl implements RegistrationService {
                 .createdAt(Instant.now())
                 .build();
         apiKeyRepo.save(newKey);
+        signingKeyChanges.keysChanged(producerId);
 
         try {
             emailService.sendWelcomeEmail(email, original.getOrganizationName(), newApiKey, producerId);
@@ -6,6 +6,9 @@ import com.learnerview.simplydone.entity.JobExecutionLog;
 import com.learnerview.simplydone.model.JobStatus;
 import com.learnerview.simplydone.repository.JobEntityRepository;
 import com.learnerview.simplydone.repository.JobExecutionLogRepository;
+import com.learnerview.simplydone.repository.QueueRepository;
+import com.learnerview.simplydone.service.CallbackService;
+import com.learnerview.simplydone.service.RedisModeController;
 import com.learnerview.simplydone.service.RetryService;
 import com.learnerview.simplydone.service.SseEmitterService;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +30,9 @@ public class RetryServiceImpl implements RetryService {
     private final JobExecutionLogRepository logRepo;
     private final SchedulerProperties props;
     private final SseEmitterService sseEmitterService;
+    private final CallbackService callbackService;
+    private final QueueRepository queueRepo;
+    private final RedisModeController redisMode;
 
     @Override
     public void handleFailure(JobEntity job, String errorMessage, long durationMs) {
@@ -67,7 +73,7 @@ public class RetryServiceImpl implements RetryService {
             job.setLeaseToken(null);
             job.setCompletedAt(Instant.now());
             job.setResult("Max retries exceeded: " + errorMessage);
-            jobRepo.save(job);
+            callbackService.saveCompleted(job);
 
             log.warn("Job {} moved to DLQ after {} attempts", job.getId(), attempt);
 
@@ -79,6 +85,42 @@ public class RetryServiceImpl implements RetryService {
         }
     }
 
+    /** Reuses the retry promotion path, but the attempt count and execution log are left alone. */
+    @Override
+    public void defer(JobEntity job, long delayMs, String reason) {
+        job.setStatus(JobStatus.RETRY_SCHEDULED);
+        job.setNextRunAt(Instant.now().plusMillis(delayMs));
+        job.setVisibleAt(null);
+        job.setLeaseOwner(null);
+        job.setLeaseToken(null);
+        jobRepo.save(job);
+
+        log.debug("Deferred job {} by {}ms: {}", job.getId(), delayMs, reason);
+
+        sseEmitterService.broadcast(job.getProducer(), "JOB_DEFERRED", Map.of(
+                "id", job.getId(), "jobType", job.getJobType(), "status", "RETRY_SCHEDULED",
+                "retryInMs", delayMs, "reason", reason != null ? reason : ""
+        ));
+    }
+
+    /** A Redis failure leaves the job QUEUED in the table, where the reconciler finds it. */
+    @Override
+    public void requeue(JobEntity job, long delayMs) {
+        Instant nextRun = Instant.now().plusMillis(delayMs);
+        job.setStatus(JobStatus.QUEUED);
+        job.setNextRunAt(nextRun);
+        job.setVisibleAt(null);
+        job.setLeaseOwner(null);
+        job.setLeaseToken(null);
+        jobRepo.save(job);
+        if (!redisMode.isRedisAvailable()) return;
+        try {
+            queueRepo.enqueue(job.getId(), job.getProducer(), job.getPriority(), nextRun.toEpochMilli());
+        } catch (RuntimeException e) {
+            log.warn("Redis queue unavailable while requeueing job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
     @Override
     public void logSuccess(JobEntity job, String message, long durationMs) {
         logRepo.save(JobExecutionLog.builder()
@@ -22,7 +22,7 @@ public class SseEmitterServiceImpl implements SseEmitterService {
     public SseEmitter subscribe(String clientId, String producer) {
         SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
 
-        java.util.Set<SseEmitter> emitters = tenantClients.computeIfAbsent(producer, k -> java.util.Collections.synchronizedSet(new java.util.HashSet<>()));
+        java.util.Set<SseEmitter> emitters = tenantClients.computeIfAbsent(producer, k -> ConcurrentHashMap.newKeySet());
         emitters.add(emitter);
 
         emitter.onCompletion(() -> emitters.remove(emitter));
@@ -55,16 +55,14 @@ public class SseEmitterServiceImpl implements SseEmitterService {
             return;
         }
 
-        synchronized (emitters) {
-            java.util.Iterator<SseEmitter> iterator = emitters.iterator();
-            while (iterator.hasNext()) {
-                SseEmitter emitter = iterator.next();
-                try {
-                    emitter.send(SseEmitter.event().name(eventType).data(json));
-                } catch (IOException | IllegalStateException e) {
-                    iterator.remove();
-                    log.debug("Removed dead SSE client for tenant: {}", producer);
-                }
+        // No lock around the sends: a slow client would otherwise block every worker broadcasting
+        // to the same tenant. The emitter serialises its own writes.
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(eventType).data(json));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                log.debug("Removed dead SSE client for tenant: {}", producer);
             }
         }
     }
@@ -0,0 +1,308 @@
+package com.learnerview.simplydone.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.exception.HostUnavailableException;
+import com.learnerview.simplydone.service.HostIsolationService;
+import com.learnerview.simplydone.service.WebhookRequests;
+import com.learnerview.simplydone.service.WebhookSigner;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces BATCH_HTTP jobs with the same producer and endpoint into one POST, sent when full or after max-wait-ms:
+ * {@code {"jobs": [{"id", "payload"}]}} in, {@code {"results": [{"id", "success", "result", "error"}]}} out.
+ */
+@Component
+@Profile("worker")
+@Slf4j
+class WebhookBatcher {
+
+    private static final int READ_CHUNK = 8192;
+
+    private final CloseableHttpClient httpClient;
+    private final WebhookSigner signer;
+    private final HostIsolationService hostIsolation;
+    private final ObjectMapper objectMapper;
+    private final SchedulerProperties.BatchHttp settings;
+    private final SchedulerProperties.Http http;
+    private final DistributionSummary batchSizes;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService sendPool;
+
+    private final Object lock = new Object();
+    private final Map<Target, Batch> open = new HashMap<>();
+
+    private record Target(String producer, String endpoint) {
+    }
+
+    private record Item(JobEntity job, CompletableFuture<CappedBody.Result> result) {
+    }
+
+    /** A batch waiting for a send thread; kept as a task so shutdown can tell which jobs never went out. */
+    private record SendTask(WebhookBatcher batcher, Target target, List<Item> items) implements Runnable {
+        @Override
+        public void run() {
+            batcher.send(target, items);
+        }
+    }
+
+    private static final class Batch {
+        final List<Item> items = new ArrayList<>();
+        ScheduledFuture<?> deadline;
+    }
+
+    /** A failed or missing item; only the message matters, it becomes the job's error. */
+    static final class ItemFailedException extends RuntimeException {
+        ItemFailedException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    WebhookBatcher(CloseableHttpClient webhookHttpClient, WebhookSigner signer, HostIsolationService hostIsolation,
+                   ObjectMapper objectMapper, MeterRegistry meterRegistry, SchedulerProperties props) {
+        this.httpClient = webhookHttpClient;
+        this.signer = signer;
+        this.hostIsolation = hostIsolation;
+        this.objectMapper = objectMapper;
+        this.settings = props.getBatchHttp();
+        this.http = props.getHttp();
+        this.batchSizes = DistributionSummary.builder("simplydone.webhook.batch.size")
+                .description("Jobs coalesced into one BATCH_HTTP request")
+                .register(meterRegistry);
+        this.timer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("webhook-batch-timer-"));
+        this.sendPool = Executors.newFixedThreadPool(settings.getThreads(), new CustomizableThreadFactory("webhook-batch-"));
+    }
+
+    CompletableFuture<CappedBody.Result> submit(JobEntity job) {
+        Item item = new Item(job, new CompletableFuture<>());
+        Target target = new Target(job.getProducer(), job.getExecutionEndpoint());
+        List<Item> full = null;
+        synchronized (lock) {
+            Batch batch = open.get(target);
+            if (batch == null) {
+                Batch opened = new Batch();
+                opened.deadline = timer.schedule(() -> flush(target, opened), settings.getMaxWaitMs(), TimeUnit.MILLISECONDS);
+                open.put(target, opened);
+                batch = opened;
+            }
+            batch.items.add(item);
+            if (batch.items.size() >= settings.getMaxItems()) {
+                open.remove(target);
+                batch.deadline.cancel(false);
+                full = batch.items;
+            }
+        }
+        if (full != null) {
+            sendLater(target, full);
+        }
+        return item.result();
+    }
+
+    /** Jobs in open or queued batches were never sent, so they go back to their queues uncharged. */
+    @PreDestroy
+    public void shutdown() {
+        List<SendTask> unsent = new ArrayList<>();
+        synchronized (lock) {
+            open.forEach((target, batch) -> {
+                batch.deadline.cancel(false);
+                unsent.add(new SendTask(this, target, batch.items));
+            });
+            open.clear();
+        }
+        timer.shutdownNow();
+        for (Runnable task : sendPool.shutdownNow()) {
+            if (task instanceof SendTask send) unsent.add(send);
+        }
+        for (SendTask send : unsent) {
+            failAll(send.items(), new HostUnavailableException(
+                    String.valueOf(HostIsolationService.hostOf(send.target().endpoint())),
+                    "was not called before shutdown", 0, true));
+        }
+    }
+
+    private void flush(Target target, Batch batch) {
+        synchronized (lock) {
+            if (open.get(target) != batch) return;
+            open.remove(target);
+        }
+        sendLater(target, batch.items);
+    }
+
+    private void sendLater(Target target, List<Item> items) {
+        try {
+            sendPool.execute(new SendTask(this, target, items));
+        } catch (RejectedExecutionException e) {
+            failAll(items, e);
+        }
+    }
+
+    private void send(Target target, List<Item> items) {
+        batchSizes.record(items.size());
+        HostIsolationService.Permit permit;
+        try {
+            String host = HostIsolationService.hostOf(target.endpoint());
+            if (host == null) {
+                throw new IllegalArgumentException("Execution endpoint has no host: " + target.endpoint());
+            }
+            permit = hostIsolation.acquire(host);
+        } catch (RuntimeException e) {
+            // A HostUnavailableException here defers every job in the batch.
+            failAll(items, e);
+            return;
+        }
+
+        Timeout timeout = timeout(items);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = null;
+        int status;
+        CappedBody.Result body;
+        try {
+            byte[] request = requestBody(items);
+            HttpPost post = new HttpPost(target.endpoint());
+            post.setConfig(WebhookRequests.timeoutConfig(timeout));
+            post.setEntity(new ByteArrayEntity(request, ContentType.APPLICATION_JSON));
+            String signature = signer.sign(target.producer(), request);
+            if (signature != null) {
+                post.setHeader(WebhookRequests.SIGNATURE_HEADER, signature);
+            }
+            CappedBody.Result[] response = new CappedBody.Result[1];
+            deadline = timer.schedule(() -> {
+                timedOut.set(true);
+                post.cancel();
+            }, timeout.toMilliseconds(), TimeUnit.MILLISECONDS);
+            status = httpClient.execute(post, httpResponse -> {
+                response[0] = readBody(post, httpResponse);
+                return httpResponse.getCode();
+            });
+            body = response[0];
+        } catch (IOException | RuntimeException e) {
+            Exception failure = timedOut.get() ? WebhookRequests.deadlineExceeded(timeout) : e;
+            permit.failed(failure);
+            failAll(items, failure);
+            return;
+        } finally {
+            if (deadline != null) deadline.cancel(false);
+        }
+        permit.completed(status);
+
+        if (status < 200 || status >= 300) {
+            failAll(items, new ItemFailedException("HTTP " + status));
+        } else if (body.truncated()) {
+            failAll(items, new ItemFailedException("Batch response exceeded " + responseLimit() + " bytes"));
+        } else {
+            try {
+                completeItems(items, body.text());
+            } catch (RuntimeException e) {
+                failAll(items, e);
+            }
+        }
+    }
+
+    private byte[] requestBody(List<Item> items) {
+        StringBuilder json = new StringBuilder("{\"jobs\":[");
+        for (int i = 0; i < items.size(); i++) {
+            JobEntity job = items.get(i).job();
+            if (i > 0) json.append(',');
+            // Job IDs are UUIDs and payloads were serialised as JSON on submission.
+            json.append("{\"id\":\"").append(job.getId()).append("\",\"payload\":")
+                    .append(job.getPayload() != null ? job.getPayload() : "{}").append('}');
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The whole batch gets the most generous timeout among its jobs. */
+    private static Timeout timeout(List<Item> items) {
+        int seconds = items.stream()
+                .mapToInt(item -> item.job().getTimeoutSeconds() != null ? item.job().getTimeoutSeconds() : 10)
+                .max().orElse(10);
+        return Timeout.ofSeconds(seconds);
+    }
+
+    /**
+     * The response has to be parsed, so the whole body is buffered on the send thread. Its cap
+     * is batch-http.max-response-bytes, kept well below the plain webhook limit.
+     */
+    private long responseLimit() {
+        return Math.min(settings.getMaxResponseBytes(), http.getMaxResponseBytes());
+    }
+
+    private CappedBody.Result readBody(HttpPost request, ClassicHttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) return CappedBody.Result.EMPTY;
+        int limit = (int) Math.min(responseLimit(), Integer.MAX_VALUE - 8);
+        CappedBody body = new CappedBody(limit, limit, entity.getContentLength(), StandardCharsets.UTF_8);
+        InputStream in = entity.getContent();
+        byte[] chunk = new byte[READ_CHUNK];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            if (!body.append(chunk, 0, read)) {
+                request.cancel();
+                return body.result(false);
+            }
+        }
+        return body.result(true);
+    }
+
+    private void completeItems(List<Item> items, String responseText) {
+        Map<String, JsonNode> results = new HashMap<>();
+        try {
+            JsonNode root = objectMapper.readTree(responseText != null ? responseText : "");
+            for (JsonNode result : root.path("results")) {
+                results.put(result.path("id").asText(), result);
+            }
+        } catch (IOException e) {
+            failAll(items, new ItemFailedException("Unreadable batch response: " + e.getMessage()));
+            return;
+        }
+
+        for (Item item : items) {
+            JsonNode result = results.get(item.job().getId());
+            if (result == null) {
+                item.result().completeExceptionally(new ItemFailedException("No result for job in batch response"));
+            } else if (!result.path("success").asBoolean(false)) {
+                String error = result.path("error").asText("");
+                item.result().completeExceptionally(
+                        new ItemFailedException(error.isEmpty() ? "Batch item failed" : error));
+            } else {
+                JsonNode text = result.get("result");
+                item.result().complete(CappedBody.of(text == null || text.isNull() ? null
+                        : text.isTextual() ? text.asText() : text.toString(), http.getMaxResultBytes()));
+            }
+        }
+    }
+
+    private static void failAll(List<Item> items, Throwable error) {
+        items.forEach(item -> item.result().completeExceptionally(error));
+    }
+}
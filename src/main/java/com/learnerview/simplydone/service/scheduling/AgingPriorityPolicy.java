@@ -0,0 +1,70 @@
+package com.learnerview.simplydone.service.scheduling;
+
+import java.time.Clock;
+import java.util.Arrays;
+
+/**
+ * Strict priority with aging: a waiting lane moves up one level per {@code intervalMs} and drops back once served.
+ */
+public class AgingPriorityPolicy implements SchedulingPolicy {
+
+    private static final long NOT_WAITING = Long.MIN_VALUE;
+
+    private final long intervalMs;
+    private final Clock clock;
+    private final long[] waitingSince;
+    private final long[] servedBefore;
+    private int[] granted;
+
+    public AgingPriorityPolicy(int lanes, long intervalMs, Clock clock) {
+        this.intervalMs = Math.max(1, intervalMs);
+        this.clock = clock;
+        this.waitingSince = new long[lanes];
+        this.servedBefore = new long[lanes];
+        this.granted = new int[lanes];
+        Arrays.fill(waitingSince, NOT_WAITING);
+    }
+
+    @Override
+    public int[] allocate(int freeSlots, long[] ready) {
+        long now = clock.millis();
+        int[] slots = new int[waitingSince.length];
+        for (int i = 0; i < waitingSince.length; i++) {
+            if (ready[i] <= 0) {
+                waitingSince[i] = NOT_WAITING;
+            } else if (waitingSince[i] == NOT_WAITING) {
+                waitingSince[i] = now;
+            }
+            servedBefore[i] = waitingSince[i];
+        }
+
+        for (int n = 0; n < freeSlots; n++) {
+            int bestIdx = -1;
+            long bestLevel = Long.MAX_VALUE;
+            long bestSince = Long.MAX_VALUE;
+            for (int i = 0; i < waitingSince.length; i++) {
+                if (slots[i] >= ready[i]) continue;
+                long level = i - (now - waitingSince[i]) / intervalMs;
+                if (level < bestLevel || (level == bestLevel && waitingSince[i] < bestSince)) {
+                    bestLevel = level;
+                    bestSince = waitingSince[i];
+                    bestIdx = i;
+                }
+            }
+
+            if (bestIdx == -1) break;
+            waitingSince[bestIdx] = now;
+            slots[bestIdx]++;
+        }
+        granted = slots.clone();
+        return slots;
+    }
+
+    /** A lane that could not fill any of its slots was not really served and keeps its age. */
+    @Override
+    public void refund(int lane, int unusedSlots) {
+        if (unusedSlots > 0 && unusedSlots >= granted[lane] && servedBefore[lane] != NOT_WAITING) {
+            waitingSince[lane] = servedBefore[lane];
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.learnerview.simplydone.service.scheduling;
+
+import java.util.Arrays;
+
+/**
+ * Deficit round-robin over the lane weights. A lane without ready work drops its credit but keeps its debts.
+ */
+public class DeficitRoundRobinPolicy implements SchedulingPolicy {
+
+    private final int[] weights;
+    private final int[] deficit;
+    /** What the lane last paid for one slot; refunds and cost charges are priced with it. */
+    private final int[] price;
+
+    public DeficitRoundRobinPolicy(int[] weights) {
+        this.weights = weights.clone();
+        this.deficit = new int[weights.length];
+        this.price = new int[weights.length];
+        int total = 0;
+        for (int weight : weights) total += weight;
+        Arrays.fill(price, total);
+    }
+
+    @Override
+    public int[] allocate(int freeSlots, long[] ready) {
+        int[] slots = new int[weights.length];
+        for (int n = 0; n < freeSlots; n++) {
+            int earned = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (slots[i] < ready[i]) {
+                    deficit[i] += weights[i];
+                    earned += weights[i];
+                } else {
+                    deficit[i] = Math.min(deficit[i], 0);
+                }
+            }
+
+            int bestIdx = -1;
+            int bestDeficit = Integer.MIN_VALUE;
+            for (int i = 0; i < weights.length; i++) {
+                if (deficit[i] > bestDeficit && slots[i] < ready[i]) {
+                    bestDeficit = deficit[i];
+                    bestIdx = i;
+                }
+            }
+
+            if (bestIdx == -1) break;
+            deficit[bestIdx] -= earned;
+            price[bestIdx] = earned;
+            slots[bestIdx]++;
+        }
+        return slots;
+    }
+
+    @Override
+    public void refund(int lane, int unusedSlots) {
+        deficit[lane] += unusedSlots * price[lane];
+    }
+
+    @Override
+    public void charge(int lane, double extraSlots) {
+        deficit[lane] -= (int) Math.round(extraSlots * price[lane]);
+    }
+}
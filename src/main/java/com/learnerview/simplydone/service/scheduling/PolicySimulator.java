@@ -0,0 +1,202 @@
+package com.learnerview.simplydone.service.scheduling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnerview.simplydone.model.JobPriority;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Discrete-event replay of an arrival trace against a {@link SchedulingPolicy}, modelling one worker.
+ * Traces are JSON lines such as {@code {"atMs":0,"priority":"HIGH","serviceMs":40}}.
+ */
+public class PolicySimulator {
+
+    private static final JobPriority[] PRIORITIES = JobPriority.values();
+
+    private final int concurrency;
+    private final long starvationMs;
+    private final boolean chargeByCost;
+
+    public PolicySimulator(int concurrency, long starvationMs) {
+        this(concurrency, starvationMs, false);
+    }
+
+    /**
+     * @param concurrency  dispatch slots of the simulated worker
+     * @param starvationMs a job that waits longer than this counts as starved
+     * @param chargeByCost charge lanes by each job's service time instead of one unit per job
+     */
+    public PolicySimulator(int concurrency, long starvationMs, boolean chargeByCost) {
+        this.concurrency = Math.max(1, concurrency);
+        this.starvationMs = starvationMs;
+        this.chargeByCost = chargeByCost;
+    }
+
+    /** One submitted job: when it became ready, its lane and how long it occupies a slot. */
+    public record Arrival(long atMs, JobPriority priority, long serviceMs) {
+    }
+
+    public Report run(String name, Function<Clock, SchedulingPolicy> policyFactory, List<Arrival> trace) {
+        List<Arrival> arrivals = new ArrayList<>(trace);
+        arrivals.sort(Comparator.comparingLong(Arrival::atMs));
+        long start = arrivals.isEmpty() ? 0 : arrivals.get(0).atMs();
+        SimulatedClock clock = new SimulatedClock(start);
+        SchedulingPolicy policy = policyFactory.apply(clock);
+        double meanServiceMs = arrivals.stream().mapToLong(Arrival::serviceMs).average().orElse(1.0);
+
+        List<ArrayDeque<Arrival>> lanes = new ArrayList<>();
+        List<List<Long>> waits = new ArrayList<>();
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            lanes.add(new ArrayDeque<>());
+            waits.add(new ArrayList<>());
+        }
+        PriorityQueue<Long> completions = new PriorityQueue<>();
+        int next = 0;
+        long lastCompletion = start;
+
+        while (next < arrivals.size() || !completions.isEmpty()) {
+            long nextArrival = next < arrivals.size() ? arrivals.get(next).atMs() : Long.MAX_VALUE;
+            long nextCompletion = completions.isEmpty() ? Long.MAX_VALUE : completions.peek();
+            long now = Math.min(nextArrival, nextCompletion);
+            clock.set(now);
+
+            while (!completions.isEmpty() && completions.peek() <= now) {
+                lastCompletion = completions.poll();
+            }
+            while (next < arrivals.size() && arrivals.get(next).atMs() <= now) {
+                Arrival arrival = arrivals.get(next++);
+                lanes.get(arrival.priority().ordinal()).add(arrival);
+            }
+
+            while (completions.size() < concurrency) {
+                long[] ready = new long[PRIORITIES.length];
+                for (int i = 0; i < PRIORITIES.length; i++) {
+                    ready[i] = lanes.get(i).size();
+                }
+                int[] slots = policy.allocate(concurrency - completions.size(), ready);
+
+                int dispatched = 0;
+                for (int i = 0; i < PRIORITIES.length; i++) {
+                    int taken = 0;
+                    while (taken < slots[i] && !lanes.get(i).isEmpty()) {
+                        Arrival job = lanes.get(i).poll();
+                        waits.get(i).add(now - job.atMs());
+                        completions.add(now + Math.max(0, job.serviceMs()));
+                        if (chargeByCost) {
+                            policy.charge(i, Math.max(1, job.serviceMs()) / Math.max(1.0, meanServiceMs) - 1.0);
+                        }
+                        taken++;
+                    }
+                    if (taken < slots[i]) policy.refund(i, slots[i] - taken);
+                    dispatched += taken;
+                }
+                if (dispatched == 0) break;
+            }
+        }
+
+        List<LaneStats> laneStats = new ArrayList<>();
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            laneStats.add(LaneStats.of(PRIORITIES[i], waits.get(i), starvationMs));
+        }
+        return new Report(name, arrivals.size(), lastCompletion - start, laneStats);
+    }
+
+    /**
+     * Poisson arrivals with exponentially distributed service times. {@code mix} gives the
+     * relative share of HIGH, NORMAL and LOW jobs.
+     */
+    public static List<Arrival> syntheticTrace(long seed, int jobs, double arrivalsPerSecond, double[] mix,
+                                               long meanServiceMs) {
+        Random random = new Random(seed);
+        double total = Arrays.stream(mix).sum();
+        List<Arrival> trace = new ArrayList<>(jobs);
+        double at = 0;
+        for (int n = 0; n < jobs; n++) {
+            at += -Math.log(1 - random.nextDouble()) * 1000.0 / arrivalsPerSecond;
+            double pick = random.nextDouble() * total;
+            int lane = 0;
+            while (lane < mix.length - 1 && pick >= mix[lane]) {
+                pick -= mix[lane++];
+            }
+            long serviceMs = Math.max(1, Math.round(-Math.log(1 - random.nextDouble()) * meanServiceMs));
+            trace.add(new Arrival(Math.round(at), PRIORITIES[lane], serviceMs));
+        }
+        return trace;
+    }
+
+    /** Reads a JSON-lines trace; blank lines are skipped. */
+    public static List<Arrival> readTrace(Path path) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Arrival> trace = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    trace.add(mapper.readValue(line, Arrival.class));
+                }
+            }
+        }
+        return trace;
+    }
+
+    /** Wait-time percentiles of one lane, from becoming ready to being dispatched. */
+    public record LaneStats(JobPriority priority, int jobs, double meanMs, long p50Ms, long p95Ms, long p99Ms,
+                            long maxMs, int starved) {
+
+        static LaneStats of(JobPriority priority, List<Long> waits, long starvationMs) {
+            long[] sorted = waits.stream().mapToLong(Long::longValue).sorted().toArray();
+            int starved = (int) Arrays.stream(sorted).filter(w -> w > starvationMs).count();
+            return new LaneStats(priority, sorted.length, Arrays.stream(sorted).average().orElse(0.0),
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted.length > 0 ? sorted[sorted.length - 1] : 0, starved);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+    }
+
+    public record Report(String policy, int jobs, long makespanMs, List<LaneStats> lanes) {
+
+        /** Completed jobs per second of simulated time. */
+        public double throughput() {
+            return makespanMs > 0 ? jobs * 1000.0 / makespanMs : 0.0;
+        }
+
+        /** Mean wait over every job in the trace, whatever its lane. */
+        public double meanWaitMs() {
+            return jobs > 0 ? lanes.stream().mapToDouble(lane -> lane.meanMs() * lane.jobs()).sum() / jobs : 0.0;
+        }
+
+        public LaneStats lane(JobPriority priority) {
+            return lanes.get(priority.ordinal());
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder(String.format(
+                    "%-10s jobs=%d makespan=%dms throughput=%.1f/s mean wait=%.0fms",
+                    policy, jobs, makespanMs, throughput(), meanWaitMs()));
+            for (LaneStats lane : lanes) {
+                out.append(String.format(
+                        "%n  %-6s jobs=%-6d wait mean=%.0fms p50=%dms p95=%dms p99=%dms max=%dms starved=%d",
+                        lane.priority(), lane.jobs(), lane.meanMs(), lane.p50Ms(), lane.p95Ms(), lane.p99Ms(),
+                        lane.maxMs(), lane.starved()));
+            }
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.learnerview.simplydone.service.scheduling;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.model.JobPriority;
+
+import java.time.Clock;
+
+/**
+ * Decides how a worker's free dispatch slots are split across the priority lanes.
+ * Lanes are indexed like {@link JobPriority#values()}. A policy is only called from the
+ * dispatcher thread, so implementations keep their state without locking.
+ */
+public interface SchedulingPolicy {
+
+    /**
+     * Returns how many of {@code freeSlots} each lane gets. A lane never gets more than its
+     * {@code ready} count; {@link Long#MAX_VALUE} means the count is unknown.
+     */
+    int[] allocate(int freeSlots, long[] ready);
+
+    /** Gives back slots a lane was allocated but could not fill, so it is not charged for work it never ran. */
+    void refund(int lane, int unusedSlots);
+
+    /**
+     * Adjusts what a lane paid for a dispatched job that is expected to run {@code extraSlots}
+     * times longer than an average job; negative for a shorter one. Policies that do not share
+     * by weight ignore it.
+     */
+    default void charge(int lane, double extraSlots) {
+    }
+
+    /** The policy selected by {@code simplydone.scheduler.policy}; aging reads time from {@code clock}. */
+    static SchedulingPolicy fromConfig(SchedulerProperties.Scheduler config, Clock clock) {
+        int[] weights = {config.getWeights().getHigh(), config.getWeights().getNormal(), config.getWeights().getLow()};
+        return switch (config.getPolicy()) {
+            case DRR -> new DeficitRoundRobinPolicy(weights);
+            case STRICT -> new StrictPriorityPolicy(weights.length);
+            case WFQ -> new WeightedFairQueuingPolicy(weights);
+            case AGING -> new AgingPriorityPolicy(weights.length, config.getAging().getIntervalMs(), clock);
+        };
+    }
+}
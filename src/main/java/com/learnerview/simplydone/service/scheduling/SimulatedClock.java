@@ -0,0 +1,47 @@
+package com.learnerview.simplydone.service.scheduling;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/** A clock that only moves when told to, so policies that read time replay deterministically. */
+public class SimulatedClock extends Clock {
+
+    private long millis;
+
+    public SimulatedClock(long startMillis) {
+        this.millis = startMillis;
+    }
+
+    public void set(long epochMillis) {
+        if (epochMillis < millis) {
+            throw new IllegalArgumentException("Simulated time cannot go backwards: " + epochMillis + " < " + millis);
+        }
+        millis = epochMillis;
+    }
+
+    public void advance(long deltaMillis) {
+        set(millis + deltaMillis);
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+}
@@ -0,0 +1,27 @@
+package com.learnerview.simplydone.service.scheduling;
+
+/** Fills lanes in priority order; a lower lane only runs when every lane above it is empty. */
+public class StrictPriorityPolicy implements SchedulingPolicy {
+
+    private final int lanes;
+
+    public StrictPriorityPolicy(int lanes) {
+        this.lanes = lanes;
+    }
+
+    @Override
+    public int[] allocate(int freeSlots, long[] ready) {
+        int[] slots = new int[lanes];
+        int left = freeSlots;
+        for (int i = 0; i < lanes && left > 0; i++) {
+            slots[i] = (int) Math.min(left, ready[i]);
+            left -= slots[i];
+        }
+        return slots;
+    }
+
+    @Override
+    public void refund(int lane, int unusedSlots) {
+        // Nothing was charged.
+    }
+}
@@ -0,0 +1,63 @@
+package com.learnerview.simplydone.service.scheduling;
+
+/**
+ * Start-time fair queuing over the lane weights; a lane returning from idle restarts at the current virtual time.
+ */
+public class WeightedFairQueuingPolicy implements SchedulingPolicy {
+
+    private final double[] cost;
+    private final double[] finish;
+    private final boolean[] backlogged;
+    private double virtualTime;
+
+    public WeightedFairQueuingPolicy(int[] weights) {
+        this.cost = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            cost[i] = 1.0 / Math.max(1, weights[i]);
+        }
+        this.finish = new double[weights.length];
+        this.backlogged = new boolean[weights.length];
+    }
+
+    @Override
+    public int[] allocate(int freeSlots, long[] ready) {
+        int[] slots = new int[cost.length];
+        for (int i = 0; i < cost.length; i++) {
+            if (ready[i] <= 0) {
+                backlogged[i] = false;
+            } else if (!backlogged[i]) {
+                backlogged[i] = true;
+                finish[i] = Math.max(finish[i], virtualTime);
+            }
+        }
+
+        for (int n = 0; n < freeSlots; n++) {
+            int bestIdx = -1;
+            double bestTag = Double.MAX_VALUE;
+            for (int i = 0; i < cost.length; i++) {
+                if (slots[i] >= ready[i]) continue;
+                double tag = finish[i] + cost[i];
+                if (tag < bestTag) {
+                    bestTag = tag;
+                    bestIdx = i;
+                }
+            }
+
+            if (bestIdx == -1) break;
+            virtualTime = finish[bestIdx];
+            finish[bestIdx] = bestTag;
+            slots[bestIdx]++;
+        }
+        return slots;
+    }
+
+    @Override
+    public void refund(int lane, int unusedSlots) {
+        finish[lane] -= unusedSlots * cost[lane];
+    }
+
+    @Override
+    public void charge(int lane, double extraSlots) {
+        finish[lane] += extraSlots * cost[lane];
+    }
+}
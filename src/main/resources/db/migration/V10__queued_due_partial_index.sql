@@ -0,0 +1,3 @@
+-- Serves the database fallback claim (status = 'QUEUED' AND priority = ? AND next_run_at <= ? ORDER BY next_run_at).
+-- Only queued rows are indexed, so the index stays small however many finished jobs the table keeps.
+CREATE INDEX idx_jobs_queued_due ON jobs(priority, next_run_at) WHERE status = 'QUEUED';
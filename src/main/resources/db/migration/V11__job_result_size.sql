@@ -0,0 +1,3 @@
+-- Webhook results are stored capped; keep the size the endpoint actually returned and whether it was cut.
+ALTER TABLE jobs ADD COLUMN result_bytes BIGINT;
+ALTER TABLE jobs ADD COLUMN result_truncated BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,21 @@
+-- Outbox of completion callbacks: one row per terminal transition of a job that has a callback_url.
+CREATE TABLE callback_deliveries (
+    id BIGSERIAL PRIMARY KEY,
+    job_id VARCHAR(36) NOT NULL,
+    producer VARCHAR(120) NOT NULL,
+    callback_url VARCHAR(2000) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    delivered_at TIMESTAMP(6) WITH TIME ZONE,
+    -- Identifies the dispatcher that leased a delivery, so a late worker cannot overwrite the next holder's result.
+    lease_token VARCHAR(36)
+);
+
+-- The dispatcher only ever scans pending rows that are due.
+CREATE INDEX idx_callback_pending_due ON callback_deliveries(next_attempt_at) WHERE status = 'PENDING';
+-- Finished rows are purged by age.
+CREATE INDEX idx_callback_finished ON callback_deliveries(created_at) WHERE status <> 'PENDING';
@@ -0,0 +1,6 @@
+-- Fair-share weights per producer; a producer without a row gets weight 1.
+CREATE TABLE producer_weights (
+    producer VARCHAR(120) PRIMARY KEY,
+    weight INTEGER NOT NULL,
+    updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
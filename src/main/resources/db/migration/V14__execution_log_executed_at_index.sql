@@ -0,0 +1,2 @@
+-- Workers seed their job duration estimates from recent execution logs at startup.
+CREATE INDEX idx_execution_logs_executed_at ON job_execution_logs(executed_at);
@@ -0,0 +1,6 @@
+-- Leader leases for cluster-wide sweeps while Redis is unavailable; Redis holds them otherwise.
+CREATE TABLE cluster_leases (
+    name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(100) NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,242 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.model.JobPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the legacy WATCH/MULTI claim against the Lua claim script with many workers on one lane.
+ * {@code mvn test -Dtest=RedisClaimContentionBenchmark -Dsimplydone.bench.redis-url=redis://localhost:6379}
+ */
+@EnabledIfSystemProperty(named = "simplydone.bench.redis-url", matches = ".+")
+class RedisClaimContentionBenchmark {
+
+    private static final String PREFIX = "simplydone:bench:queue";
+    private static final String LEGACY_KEY = PREFIX + ":legacy";
+
+    private final int workers = Integer.getInteger("simplydone.bench.workers", 8);
+    private final int jobs = Integer.getInteger("simplydone.bench.jobs", 5_000);
+    private final int promoteBatch = Integer.getInteger("simplydone.bench.promote-batch", 500);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private RedisQueueRepository queueRepo;
+
+    @BeforeEach
+    void setUp() {
+        URI uri = URI.create(System.getProperty("simplydone.bench.redis-url"));
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(uri.getHost(), uri.getPort() > 0 ? uri.getPort() : 6379));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+
+        SchedulerProperties props = new SchedulerProperties();
+        props.getScheduler().setQueuePrefix(PREFIX);
+        queueRepo = new RedisQueueRepository(redis, props);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queueRepo.clearAll();
+        redis.delete(LEGACY_KEY);
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void compareWatchMultiAndLuaClaimUnderContention() throws InterruptedException {
+        seedLegacy();
+        Result legacy = run("WATCH/MULTI", () -> claimWithWatch(LEGACY_KEY),
+                () -> redis.opsForZSet().zCard(LEGACY_KEY));
+
+        seedQueue();
+        Result promote = promoteAll();
+        Result claim = run("Lua claim", () -> queueRepo.claimReady(JobPriority.HIGH, 1).stream().map(ClaimedJob::id).toList(),
+                () -> queueRepo.queueSize(JobPriority.HIGH));
+
+        System.out.println(legacy);
+        System.out.println(promote);
+        System.out.println(claim);
+        System.out.printf("Lua total    elapsed=%dms%n", promote.elapsedMs + claim.elapsedMs);
+
+        assertEquals(jobs, legacy.claimed);
+        assertEquals(jobs, promote.claimed);
+        assertEquals(jobs, claim.claimed);
+        assertEquals(0, claim.lostRaces);
+    }
+
+    /** Promotes the whole lane from one thread, as the engine does once per pass. */
+    private Result promoteAll() {
+        List<Long> samples = new ArrayList<>();
+        long promoted = 0;
+        long t0 = System.nanoTime();
+        while (true) {
+            long before = System.nanoTime();
+            long ready = queueRepo.promoteDue(JobPriority.HIGH, promoteBatch).ready();
+            samples.add(System.nanoTime() - before);
+            if (ready == promoted) break;
+            promoted = ready;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        return new Result("Lua promote", (int) promoted, samples.size(), 0, elapsedMs, merge(List.of(samples)));
+    }
+
+    private Result run(String name, Supplier<List<String>> claim, LongSupplier remaining) throws InterruptedException {
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicLong attempts = new AtomicLong();
+        AtomicLong lostRaces = new AtomicLong();
+        List<List<Long>> latencies = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+
+        for (int w = 0; w < workers; w++) {
+            List<Long> samples = new ArrayList<>(jobs / workers * 2);
+            latencies.add(samples);
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    while (true) {
+                        long t0 = System.nanoTime();
+                        List<String> claimed = claim.get();
+                        samples.add(System.nanoTime() - t0);
+                        attempts.incrementAndGet();
+                        if (!claimed.isEmpty()) {
+                            seen.addAll(claimed);
+                        } else if (remaining.getAsLong() > 0) {
+                            lostRaces.incrementAndGet();
+                        } else {
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.MINUTES);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        return new Result(name, seen.size(), attempts.get(), lostRaces.get(), elapsedMs, merge(latencies));
+    }
+
+    private void seedLegacy() {
+        redis.delete(LEGACY_KEY);
+        long now = System.currentTimeMillis();
+        redis.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations ops) throws DataAccessException {
+                for (int i = 0; i < jobs; i++) {
+                    ops.opsForZSet().add(LEGACY_KEY, "job-" + i, now - jobs + i);
+                }
+                return null;
+            }
+        });
+    }
+
+    private void seedQueue() {
+        queueRepo.clearAll();
+        Instant now = Instant.now();
+        List<QueuedJobRef> refs = new ArrayList<>(jobs);
+        for (int i = 0; i < jobs; i++) {
+            refs.add(new Ref("job-" + i, now.minusMillis(jobs - i)));
+        }
+        queueRepo.enqueueAll(refs);
+    }
+
+    /** The claim path this repository used before the Lua script, kept here as the baseline. */
+    @SuppressWarnings("unchecked")
+    private List<String> claimWithWatch(String key) {
+        long now = System.currentTimeMillis();
+        return redis.execute(new SessionCallback<List<String>>() {
+            @Override
+            public List<String> execute(RedisOperations ops) throws DataAccessException {
+                ops.watch(key);
+                Set<String> due = ops.opsForZSet().rangeByScore(key, 0, now, 0, 1);
+                if (due == null || due.isEmpty()) {
+                    ops.unwatch();
+                    return List.of();
+                }
+                ops.multi();
+                ops.opsForZSet().remove(key, due.toArray());
+                List<Object> execResult = ops.exec();
+                if (execResult == null || execResult.isEmpty()) {
+                    return List.of();
+                }
+                return new ArrayList<>(due);
+            }
+        });
+    }
+
+    private static long[] merge(List<List<Long>> perWorker) {
+        return perWorker.stream().flatMap(List::stream).mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private record Ref(String id, Instant nextRunAt) implements QueuedJobRef {
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getProducer() {
+            return null;
+        }
+
+        @Override
+        public JobPriority getPriority() {
+            return JobPriority.HIGH;
+        }
+
+        @Override
+        public Instant getNextRunAt() {
+            return nextRunAt;
+        }
+    }
+
+    private record Result(String name, int claimed, long attempts, long lostRaces, long elapsedMs, long[] latencies) {
+
+        long percentileMicros(double p) {
+            if (latencies.length == 0) return 0;
+            int idx = (int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1);
+            return TimeUnit.NANOSECONDS.toMicros(latencies[Math.max(0, idx)]);
+        }
+
+        @Override
+        public String toString() {
+            double successRate = attempts > 0 ? (attempts - lostRaces) * 100.0 / attempts : 0.0;
+            return String.format("%-12s claimed=%d attempts=%d lostRaces=%d successRate=%.1f%% "
+                            + "p50=%dus p99=%dus elapsed=%dms",
+                    name, claimed, attempts, lostRaces, successRate,
+                    percentileMicros(0.50), percentileMicros(0.99), elapsedMs);
+        }
+    }
+}
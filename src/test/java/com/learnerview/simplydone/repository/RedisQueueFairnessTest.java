@@ -0,0 +1,166 @@
+package com.learnerview.simplydone.repository;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.model.JobPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that claims inside one lane take turns between producers. Needs {@code -Dsimplydone.bench.redis-url}.
+ */
+@EnabledIfSystemProperty(named = "simplydone.bench.redis-url", matches = ".+")
+class RedisQueueFairnessTest {
+
+    private static final String PREFIX = "simplydone:test:fairness";
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private RedisQueueRepository queueRepo;
+
+    @BeforeEach
+    void setUp() {
+        URI uri = URI.create(System.getProperty("simplydone.bench.redis-url"));
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(uri.getHost(), uri.getPort() > 0 ? uri.getPort() : 6379));
+        connectionFactory.afterPropertiesSet();
+
+        SchedulerProperties props = new SchedulerProperties();
+        props.getScheduler().setQueuePrefix(PREFIX);
+        redis = new StringRedisTemplate(connectionFactory);
+        queueRepo = new RedisQueueRepository(redis, props);
+        queueRepo.clearAll();
+        queueRepo.replaceProducerWeights(Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        queueRepo.clearAll();
+        queueRepo.replaceProducerWeights(Map.of());
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void smallProducerIsNotStuckBehindABacklog() {
+        seed("bulk", 1_000);
+        seed("small", 10);
+
+        List<ClaimedJob> claimed = queueRepo.claimReady(JobPriority.NORMAL, 20);
+
+        assertEquals(20, claimed.size());
+        assertEquals(Map.of("bulk", 10L, "small", 10L), countByProducer(claimed));
+    }
+
+    @Test
+    void weightsSetEachProducersShareOfATurn() {
+        seed("gold", 300);
+        seed("basic", 300);
+        queueRepo.setProducerWeight("gold", 3);
+
+        List<ClaimedJob> claimed = queueRepo.claimReady(JobPriority.NORMAL, 400);
+
+        assertEquals(Map.of("gold", 300L, "basic", 100L), countByProducer(claimed));
+    }
+
+    @Test
+    void producerOrderIsKeptAcrossClaims() {
+        seed("a", 5);
+        seed("b", 5);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            queueRepo.claimReady(JobPriority.NORMAL, 1).forEach(job -> ids.add(job.id()));
+        }
+
+        assertTrue(ids.containsAll(List.of("a-0", "a-4", "b-0", "b-4")));
+        assertTrue(ids.indexOf("a-0") < ids.indexOf("a-1"), "jobs of one producer stay FIFO");
+        assertTrue(ids.indexOf("b-0") < ids.indexOf("a-2"), "the second producer gets a turn early");
+        assertEquals(0, queueRepo.queueSize(JobPriority.NORMAL));
+    }
+
+    @Test
+    void readyCountFollowsPromotionsClaimsAndRemovals() {
+        seed("a", 5);
+        seed("b", 3);
+        queueRepo.enqueue("later", "a", JobPriority.NORMAL, System.currentTimeMillis() + 60_000);
+
+        assertEquals(8, queueRepo.promoteDue(JobPriority.NORMAL, 10).ready());
+        assertEquals(9, queueRepo.queueSize(JobPriority.NORMAL));
+
+        queueRepo.claimReady(JobPriority.NORMAL, 3);
+        queueRepo.remove("b-2", "b", JobPriority.NORMAL);
+        queueRepo.remove("later", "a", JobPriority.NORMAL);
+
+        assertEquals(4, queueRepo.promoteDue(JobPriority.NORMAL, 10).ready());
+        assertEquals(4, queueRepo.queueSize(JobPriority.NORMAL));
+        assertEquals(List.of("a-2", "a-3", "a-4"), queueRepo.readyJobIds(JobPriority.NORMAL, "a", 0, 10));
+        assertEquals(List.of("b-1"), queueRepo.readyJobIds(JobPriority.NORMAL, "b", 0, 10));
+    }
+
+    @Test
+    void deferredClaimsComeBackUnderTheirProducer() {
+        seed("a", 2);
+        List<ClaimedJob> claimed = queueRepo.claimReady(JobPriority.NORMAL, 2);
+
+        queueRepo.deferClaimed(claimed, JobPriority.NORMAL, System.currentTimeMillis() - 1);
+
+        assertEquals(2, queueRepo.promoteDue(JobPriority.NORMAL, 10).ready());
+        assertEquals(claimed, queueRepo.claimReady(JobPriority.NORMAL, 2));
+    }
+
+    @Test
+    void promotionReportsWhenTheNextDelayedJobFallsDue() {
+        long later = System.currentTimeMillis() + 60_000;
+        queueRepo.enqueue("later", "a", JobPriority.NORMAL, later);
+        queueRepo.enqueue("latest", "b", JobPriority.NORMAL, later + 1_000);
+
+        assertEquals(new LanePromotion(0, later), queueRepo.promoteDue(JobPriority.NORMAL, 10));
+
+        queueRepo.remove("later", "a", JobPriority.NORMAL);
+        queueRepo.remove("latest", "b", JobPriority.NORMAL);
+        assertEquals(new LanePromotion(0, null), queueRepo.promoteDue(JobPriority.NORMAL, 10));
+    }
+
+    @Test
+    void legacyEntriesAreUpgradedAndTheirProducerKept() {
+        String lane = PREFIX + ":normal";
+        redis.opsForZSet().add("{" + lane + "}", "a|legacy", System.currentTimeMillis() - 1);
+        redis.opsForZSet().add(lane, "old", 1);
+        redis.opsForList().rightPush(lane + ":ready", "old");
+        queueRepo.enqueue("current", "b", JobPriority.NORMAL, System.currentTimeMillis() - 1);
+
+        assertEquals(3, queueRepo.upgradeLegacyEntries());
+
+        assertEquals(2, queueRepo.promoteDue(JobPriority.NORMAL, 10).ready());
+        assertEquals(Map.of("legacy", "a", "current", "b"), queueRepo.claimReady(JobPriority.NORMAL, 2).stream()
+                .collect(Collectors.toMap(ClaimedJob::id, ClaimedJob::producer)));
+        assertFalse(redis.hasKey(lane));
+        assertFalse(redis.hasKey("{" + lane + "}:producers"));
+    }
+
+    private void seed(String producer, int count) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            queueRepo.enqueue(producer + "-" + i, producer, JobPriority.NORMAL, now - count + i);
+        }
+        queueRepo.promoteDue(JobPriority.NORMAL, count);
+    }
+
+    private static Map<String, Long> countByProducer(List<ClaimedJob> claimed) {
+        return claimed.stream().collect(Collectors.groupingBy(ClaimedJob::producer, Collectors.counting()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.learnerview.simplydone.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveConcurrencyLimit newLimit() {
+        return new AdaptiveConcurrencyLimit(true, 10, 1, 100, 0.9, 2.0, clock::get);
+    }
+
+    /** Calls currently running against the host, oldest first, as returned by {@code tryAcquire}. */
+    private final Deque<Integer> running = new ArrayDeque<>();
+
+    /**
+     * Keeps the host saturated for one round trip: each call that finishes is replaced straight
+     * away while the limit allows, the way a backlog of jobs drives a real host.
+     */
+    private void window(AdaptiveConcurrencyLimit limit, long rttNanos, boolean dropped) {
+        topUp(limit);
+        int calls = running.size();
+        for (int i = 0; i < calls; i++) {
+            clock.addAndGet(rttNanos / calls);
+            limit.release(rttNanos, running.poll(), dropped);
+            topUp(limit);
+        }
+    }
+
+    private void topUp(AdaptiveConcurrencyLimit limit) {
+        int started;
+        while ((started = limit.tryAcquire()) >= 0) {
+            running.add(started);
+        }
+    }
+
+    @Test
+    void growsWhileLatencyStaysFlat() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        for (int i = 0; i < 10; i++) {
+            window(limit, RTT, false);
+        }
+        assertTrue(limit.limit() >= 19, "expected roughly +1 per round trip, got " + limit.limit());
+        assertEquals(running.size(), limit.inFlight());
+    }
+
+    @Test
+    void backsOffOncePerRoundTripOnErrors() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        window(limit, RTT, false);
+        int before = limit.limit();
+
+        window(limit, RTT, true);
+
+        assertEquals((int) (before * 0.9), limit.limit(), "a window of failures should count as one back-off");
+    }
+
+    @Test
+    void backsOffWhenLatencyRises() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        for (int i = 0; i < 5; i++) {
+            window(limit, RTT, false);
+        }
+        int grown = limit.limit();
+
+        for (int i = 0; i < 10; i++) {
+            window(limit, RTT * 5, false);
+        }
+
+        assertTrue(limit.limit() < grown, "limit should shrink when RTT rises, still " + limit.limit());
+    }
+
+    @Test
+    void neverExceedsTheLimit() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire() >= 0);
+        }
+        assertEquals(-1, limit.tryAcquire());
+    }
+}
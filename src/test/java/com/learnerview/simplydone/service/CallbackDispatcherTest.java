@@ -0,0 +1,156 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.CallbackDeliveryEntity;
+import com.learnerview.simplydone.model.CallbackStatus;
+import com.learnerview.simplydone.repository.CallbackDeliveryRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CallbackDispatcherTest {
+
+    @Mock
+    private CallbackDeliveryRepository callbackRepo;
+
+    @Mock
+    private WebhookSigner signer;
+
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private CallbackDispatcher dispatcher;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private volatile int responseStatus = 200;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            received.add(exchange.getRequestURI().getPath() + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(responseStatus, -1);
+            exchange.close();
+        });
+        server.start();
+        httpClient = HttpClients.createDefault();
+        dispatcher = new CallbackDispatcher(callbackRepo, httpClient, signer, new SimpleMeterRegistry(),
+                new SchedulerProperties());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        dispatcher.shutdown();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    private CallbackDeliveryEntity delivery(long id, String producer, String path) {
+        return CallbackDeliveryEntity.builder()
+                .id(id)
+                .jobId("job-" + id)
+                .producer(producer)
+                .callbackUrl("http://127.0.0.1:" + server.getAddress().getPort() + path)
+                .payload("{\"id\":\"job-" + id + "\"}")
+                .status(CallbackStatus.PENDING)
+                .attempts(1)
+                .nextAttemptAt(Instant.now())
+                .build();
+    }
+
+    @Test
+    void batchesDeliveriesPerProducerAndUrl() throws InterruptedException {
+        List<CallbackDeliveryEntity> due = List.of(
+                delivery(1, "p1", "/a"), delivery(2, "p2", "/a"), delivery(3, "p1", "/a"));
+        when(callbackRepo.leaseDue(anyInt(), anyString(), any(), any())).thenReturn(due);
+        when(callbackRepo.markDelivered(any(), anyString(), eq(CallbackStatus.DELIVERED), any()))
+                .thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        dispatcher.dispatchDue();
+
+        List<String> bodies = List.of(received.poll(5, TimeUnit.SECONDS), received.poll(5, TimeUnit.SECONDS));
+        assertTrue(bodies.contains("/a {\"deliveries\":[{\"id\":\"job-1\"},{\"id\":\"job-3\"}]}"), bodies.toString());
+        assertTrue(bodies.contains("/a {\"deliveries\":[{\"id\":\"job-2\"}]}"), bodies.toString());
+        verify(callbackRepo, timeout(5000)).markDelivered(eq(List.of(1L, 3L)), anyString(),
+                eq(CallbackStatus.DELIVERED), any());
+        verify(callbackRepo, timeout(5000)).markDelivered(eq(List.of(2L)), anyString(),
+                eq(CallbackStatus.DELIVERED), any());
+    }
+
+    @Test
+    void batchesBeyondTheIdleThreadsGoBackUntried() throws InterruptedException {
+        List<CallbackDeliveryEntity> due = List.of(delivery(1, "p1", "/a"), delivery(2, "p2", "/a"),
+                delivery(3, "p3", "/a"), delivery(4, "p4", "/a"), delivery(5, "p5", "/a"));
+        ArgumentCaptor<String> leaseToken = ArgumentCaptor.forClass(String.class);
+        when(callbackRepo.leaseDue(anyInt(), leaseToken.capture(), any(), any())).thenReturn(due);
+
+        dispatcher.dispatchDue();
+
+        verify(callbackRepo).release(eq(List.of(5L)), eq(leaseToken.getValue()), any());
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        }
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS), "only one batch per idle thread is sent");
+    }
+
+    @Test
+    void failedBatchIsRescheduledWithBackoff() throws InterruptedException {
+        responseStatus = 503;
+        CallbackDeliveryEntity pending = delivery(1, "p1", "/down");
+        ArgumentCaptor<String> leaseToken = ArgumentCaptor.forClass(String.class);
+        when(callbackRepo.leaseDue(anyInt(), leaseToken.capture(), any(), any())).thenReturn(List.of(pending));
+
+        Instant before = Instant.now();
+        dispatcher.dispatchDue();
+
+        assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        ArgumentCaptor<Instant> nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+        verify(callbackRepo, timeout(5000)).recordFailure(eq(1L), eq(leaseToken.getValue()),
+                eq(CallbackStatus.PENDING), nextAttemptAt.capture(), eq("HTTP 503"));
+        assertTrue(nextAttemptAt.getValue().isAfter(before.plusSeconds(4)));
+        verify(callbackRepo, never()).markDelivered(any(), any(), any(), any());
+    }
+
+    @Test
+    void exhaustedDeliveryIsKeptAsFailed() throws InterruptedException {
+        responseStatus = 503;
+        CallbackDeliveryEntity last = delivery(1, "p1", "/down");
+        last.setAttempts(new SchedulerProperties().getCallback().getMaxAttempts());
+        when(callbackRepo.leaseDue(anyInt(), anyString(), any(), any())).thenReturn(List.of(last));
+
+        dispatcher.dispatchDue();
+
+        assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        verify(callbackRepo, timeout(5000)).recordFailure(eq(1L), anyString(), eq(CallbackStatus.FAILED),
+                any(), eq("HTTP 503"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.repository.ClusterLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterLeaseServiceTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    @Mock
+    private ClusterLeaseRepository leaseRepo;
+
+    @Mock
+    private RedisModeController redisMode;
+
+    @Mock
+    private SchedulerEngine schedulerEngine;
+
+    private ClusterLeaseService leases;
+
+    @BeforeEach
+    void databaseMode() {
+        when(schedulerEngine.workerId()).thenReturn("worker-a");
+        when(redisMode.isRedisAvailable()).thenReturn(false);
+        leases = new ClusterLeaseService(redis, leaseRepo, redisMode, schedulerEngine);
+    }
+
+    @Test
+    void firstWorkerCreatesTheLeaseRow() {
+        when(leaseRepo.renewOrTakeOver(eq("sweep"), eq("worker-a"), any(Instant.class), any(Instant.class))).thenReturn(0);
+        when(leaseRepo.create(eq("sweep"), eq("worker-a"), any(Instant.class))).thenReturn(1);
+
+        assertTrue(leases.tryHold("sweep", 15_000));
+        verifyNoInteractions(redis);
+    }
+
+    @Test
+    void leaseHeldElsewhereIsNotTaken() {
+        when(leaseRepo.renewOrTakeOver(eq("sweep"), eq("worker-a"), any(Instant.class), any(Instant.class))).thenReturn(0);
+        when(leaseRepo.create(eq("sweep"), eq("worker-a"), any(Instant.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertFalse(leases.tryHold("sweep", 15_000));
+    }
+
+    @Test
+    void releaseOnlyTouchesLeasesThisWorkerHolds() {
+        when(leaseRepo.renewOrTakeOver(eq("sweep"), eq("worker-a"), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        leases.tryHold("sweep", 15_000);
+        leases.release("sweep");
+        leases.release("other");
+
+        verify(leaseRepo).release("sweep", "worker-a");
+        verify(leaseRepo, never()).release("other", "worker-a");
+    }
+}
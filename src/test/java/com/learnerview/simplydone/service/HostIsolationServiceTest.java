@@ -0,0 +1,151 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.dto.HostLimitResponse;
+import com.learnerview.simplydone.exception.HostUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HostIsolationServiceTest {
+
+    private CircuitBreakerRegistry circuitBreakers;
+    private SimpleMeterRegistry meterRegistry;
+    private SchedulerProperties props;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreakers = CircuitBreakerRegistry.of(Map.of(HostIsolationService.CONFIG, CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofSeconds(30))
+                .build()));
+        meterRegistry = new SimpleMeterRegistry();
+        props = new SchedulerProperties();
+        props.getHostIsolation().setAdaptiveConcurrency(false);
+        props.getHostIsolation().setInitialConcurrency(2);
+    }
+
+    @Test
+    void failingHostOnlyTripsItsOwnBreaker() {
+        HostIsolationService isolation = new HostIsolationService(circuitBreakers, meterRegistry, props);
+
+        for (int i = 0; i < 4; i++) {
+            isolation.acquire("dead.example").completed(503);
+        }
+
+        HostUnavailableException rejected = assertThrows(HostUnavailableException.class,
+                () -> isolation.acquire("dead.example"));
+        assertTrue(rejected.getDeferMs() >= 30_000, "open breaker should defer for its wait duration");
+        assertDoesNotThrow(() -> isolation.acquire("healthy.example").completed(200));
+    }
+
+    @Test
+    void hostAtItsLimitDefersWithoutCountingAgainstTheBreaker() {
+        HostIsolationService isolation = new HostIsolationService(circuitBreakers, meterRegistry, props);
+
+        HostIsolationService.Permit first = isolation.acquire("slow.example");
+        isolation.acquire("slow.example");
+
+        HostUnavailableException rejected = assertThrows(HostUnavailableException.class,
+                () -> isolation.acquire("slow.example"));
+        assertTrue(rejected.getDeferMs() < 30_000, "a busy host should only defer briefly");
+
+        first.completed(200);
+        assertDoesNotThrow(() -> isolation.acquire("slow.example"));
+        assertEquals(0, circuitBreakers.circuitBreaker("host:slow.example").getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void spareCapacityCountsCallsInFlightWithoutTakingAny() {
+        HostIsolationService isolation = new HostIsolationService(circuitBreakers, meterRegistry, props);
+
+        assertEquals(2, isolation.spareCapacity("new.example"));
+        HostIsolationService.Permit first = isolation.acquire("new.example");
+        assertEquals(1, isolation.spareCapacity("new.example"));
+        assertFalse(isolation.anyHostAtLimit());
+        isolation.acquire("new.example");
+        assertEquals(0, isolation.spareCapacity("new.example"));
+        assertTrue(isolation.anyHostAtLimit());
+
+        first.completed(200);
+        assertEquals(1, isolation.spareCapacity("new.example"));
+        assertFalse(isolation.anyHostAtLimit());
+    }
+
+    @Test
+    void hostAtItsLimitIsReportedBusyButAnOpenBreakerIsNot() {
+        HostIsolationService isolation = new HostIsolationService(circuitBreakers, meterRegistry, props);
+        isolation.acquire("slow.example");
+        isolation.acquire("slow.example");
+        for (int i = 0; i < 4; i++) {
+            isolation.acquire("dead.example").completed(503);
+        }
+
+        assertTrue(assertThrows(HostUnavailableException.class, () -> isolation.acquire("slow.example")).isBusy());
+        assertFalse(assertThrows(HostUnavailableException.class, () -> isolation.acquire("dead.example")).isBusy());
+    }
+
+    @Test
+    void idleHostsAreEvicted() throws InterruptedException {
+        props.getHostIsolation().setIdleEvictionSeconds(0);
+        HostIsolationService isolation = new HostIsolationService(circuitBreakers, meterRegistry, props);
+
+        isolation.acquire("idle.example").completed(200);
+        HostIsolationService.Permit inFlight = isolation.acquire("busy.example");
+        Thread.sleep(5);
+        isolation.evictIdleHosts();
+
+        assertTrue(circuitBreakers.find("host:idle.example").isEmpty());
+        assertNull(meterRegistry.find("simplydone.host.concurrency.limit").tag("host", "idle.example").gauge());
+        assertEquals(List.of("busy.example"), isolation.snapshot().stream().map(HostLimitResponse::getHost).toList(),
+                "a host with a call in progress is kept");
+        inFlight.completed(200);
+    }
+
+    @Test
+    void evictionRacingWithCallsLeavesTheHostTrackedWithItsGauges() throws InterruptedException {
+        props.getHostIsolation().setIdleEvictionSeconds(0);
+        props.getHostIsolation().setInitialConcurrency(100);
+        HostIsolationService isolation = new HostIsolationService(circuitBreakers, meterRegistry, props);
+        AtomicBoolean calling = new AtomicBoolean(true);
+
+        Thread evictor = new Thread(() -> {
+            while (calling.get()) isolation.evictIdleHosts();
+        });
+        evictor.start();
+        List<Thread> callers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread caller = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) isolation.acquire("race.example").completed(200);
+            });
+            caller.start();
+            callers.add(caller);
+        }
+        for (Thread caller : callers) caller.join();
+        calling.set(false);
+        evictor.join();
+
+        HostIsolationService.Permit last = isolation.acquire("race.example");
+        assertEquals(1.0, meterRegistry.get("simplydone.host.concurrency.in_flight")
+                .tag("host", "race.example").gauge().value(), "the registered gauge follows the live state");
+        assertEquals(99, isolation.spareCapacity("race.example"));
+        last.completed(200);
+    }
+}
@@ -0,0 +1,89 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.repository.DurationSample;
+import com.learnerview.simplydone.repository.JobExecutionLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobDurationEstimatorTest {
+
+    @Mock
+    private JobExecutionLogRepository logRepo;
+
+    private SchedulerProperties props;
+
+    @BeforeEach
+    void setUp() {
+        props = new SchedulerProperties();
+        props.getScheduler().getCost().setSmoothing(0.5);
+        props.getScheduler().getCost().setMaxRatio(10);
+    }
+
+    @Test
+    void slowDestinationCostsMoreThanAnAverageJob() {
+        JobDurationEstimator durations = new JobDurationEstimator(logRepo, props);
+        for (int i = 0; i < 50; i++) {
+            durations.record(job("acme", "https://fast.example/hook"), 20);
+        }
+        durations.record(job("acme", "https://slow.example/a"), 2_000);
+
+        assertEquals(10.0, durations.relativeCost(job("acme", "https://slow.example/b")), 1e-9,
+                "endpoints on one host share an estimate and the ratio is capped");
+        assertEquals(1.0, durations.relativeCost(job("other", "https://slow.example/a")),
+                "another producer's jobs on the same host are not priced yet");
+        assertEquals(1.0, durations.relativeCost(job("acme", "https://fast.example/hook")), 0.5);
+    }
+
+    @Test
+    void estimatesAreSeededFromExecutionLogs() {
+        List<DurationSample> samples = List.of(
+                sample("acme", "https://slow.example/a", 900.0, 10),
+                sample("acme", "https://fast.example/b", 100.0, 90));
+        when(logRepo.averageDurationsSince(any(Instant.class), any(Pageable.class))).thenReturn(samples);
+        JobDurationEstimator durations = new JobDurationEstimator(logRepo, props);
+
+        durations.warmUp();
+
+        assertEquals(2, durations.trackedDestinations());
+        assertEquals(5.0, durations.relativeCost(job("acme", "https://slow.example/c")), 1e-9);
+    }
+
+    @Test
+    void disabledEstimatorPricesEveryJobTheSame() {
+        props.getScheduler().getCost().setEnabled(false);
+        JobDurationEstimator durations = new JobDurationEstimator(logRepo, props);
+        durations.record(job("acme", "https://slow.example/a"), 60_000);
+
+        assertEquals(1.0, durations.relativeCost(job("acme", "https://slow.example/a")));
+        assertEquals(0, durations.trackedDestinations());
+    }
+
+    private static JobEntity job(String producer, String endpoint) {
+        return JobEntity.builder().producer(producer).executionType("HTTP").executionEndpoint(endpoint).build();
+    }
+
+    private static DurationSample sample(String producer, String endpoint, double averageMs, long samples) {
+        DurationSample sample = mock(DurationSample.class);
+        when(sample.getProducer()).thenReturn(producer);
+        when(sample.getExecutionType()).thenReturn("HTTP");
+        when(sample.getExecutionEndpoint()).thenReturn(endpoint);
+        when(sample.getAverageMs()).thenReturn(averageMs);
+        when(sample.getSamples()).thenReturn(samples);
+        return sample;
+    }
+}
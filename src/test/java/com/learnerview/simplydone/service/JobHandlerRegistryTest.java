@@ -0,0 +1,42 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.dto.HandlerInfoResponse;
+import com.learnerview.simplydone.entity.JobEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobHandlerRegistryTest {
+
+    private record Handler(String jobType, String description) implements JobHandler {
+        @Override
+        public String handle(JobEntity job) {
+            return null;
+        }
+    }
+
+    @Test
+    void handlersAreFoundAndListedByJobType() {
+        Handler purge = new Handler("purge", "Deletes expired rows");
+        JobHandlerRegistry registry = new JobHandlerRegistry(List.of(purge, new Handler("fan_out", "")));
+
+        assertSame(purge, registry.find("purge").orElseThrow());
+        assertTrue(registry.find("email").isEmpty());
+        assertTrue(registry.find(null).isEmpty());
+        assertEquals(List.of("fan_out", "purge"),
+                registry.describe().stream().map(HandlerInfoResponse::getJobType).toList());
+        assertEquals("Handler", registry.describe().get(1).getHandlerClass());
+    }
+
+    @Test
+    void twoHandlersForOneJobTypeAreRejected() {
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> new JobHandlerRegistry(List.of(new Handler("purge", ""), new Handler("purge", ""))));
+        assertTrue(error.getMessage().contains("purge"));
+    }
+}
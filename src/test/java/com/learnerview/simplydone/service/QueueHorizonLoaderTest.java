@@ -0,0 +1,94 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.QueueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueueHorizonLoaderTest {
+
+    @Mock
+    private JobEntityRepository jobRepo;
+
+    @Mock
+    private QueueRepository queueRepo;
+
+    @Mock
+    private RedisModeController redisMode;
+
+    @Mock
+    private ClusterLeaseService leases;
+
+    private SchedulerProperties props;
+    private QueueHorizonLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        when(redisMode.isRedisAvailable()).thenReturn(true);
+        props = new SchedulerProperties();
+        loader = new QueueHorizonLoader(jobRepo, queueRepo, redisMode, leases, props);
+    }
+
+    @Test
+    void onlyTheLeaseHolderLoads() {
+        when(leases.tryHold(QueueHorizonLoader.LOADER_LEASE, 120000L)).thenReturn(false);
+
+        loader.loadUpcoming();
+
+        verifyNoInteractions(jobRepo, queueRepo);
+    }
+
+    @Test
+    void everyRunRescansTheLastTenthOfTheHorizon() {
+        when(leases.tryHold(QueueHorizonLoader.LOADER_LEASE, 120000L)).thenReturn(true);
+        when(jobRepo.findQueuedPage(eq(JobStatus.QUEUED), any(), anyString(), any(), any())).thenReturn(List.of());
+
+        loader.loadUpcoming();
+        loader.loadUpcoming();
+
+        ArgumentCaptor<Instant> after = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> until = ArgumentCaptor.forClass(Instant.class);
+        verify(jobRepo, times(2)).findQueuedPage(eq(JobStatus.QUEUED), after.capture(), eq(""), until.capture(), any());
+        long margin = props.getQueue().getHorizonSeconds() * 1000L / 10;
+        assertEquals(until.getAllValues().get(0).minusMillis(margin), after.getAllValues().get(1));
+    }
+
+    @Test
+    void workerTakingTheLeaseOverStartsFromNowNotItsOldWatermark() {
+        when(leases.tryHold(QueueHorizonLoader.LOADER_LEASE, 120000L)).thenReturn(true, false, true);
+        when(jobRepo.findQueuedPage(eq(JobStatus.QUEUED), any(), anyString(), any(), any())).thenReturn(List.of());
+
+        loader.loadUpcoming();
+        loader.loadUpcoming();
+        Instant takeover = Instant.now();
+        loader.loadUpcoming();
+
+        ArgumentCaptor<Instant> after = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> until = ArgumentCaptor.forClass(Instant.class);
+        verify(jobRepo, times(2)).findQueuedPage(eq(JobStatus.QUEUED), after.capture(), eq(""), until.capture(), any());
+        long margin = props.getQueue().getHorizonSeconds() * 1000L / 10;
+        assertTrue(after.getAllValues().get(1).isBefore(until.getAllValues().get(0).minusMillis(margin)));
+        assertFalse(after.getAllValues().get(1).isBefore(takeover.minusMillis(margin)));
+    }
+}
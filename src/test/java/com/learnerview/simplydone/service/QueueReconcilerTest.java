@@ -0,0 +1,136 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.model.JobPriority;
+import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.ProducerWeightRepository;
+import com.learnerview.simplydone.repository.QueueRepository;
+import com.learnerview.simplydone.repository.QueuedJobRef;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueueReconcilerTest {
+
+    private static final String LEASE = QueueReconciler.RECONCILER_LEASE;
+
+    @Mock
+    private JobEntityRepository jobRepo;
+
+    @Mock
+    private QueueRepository queueRepo;
+
+    @Mock
+    private ProducerWeightRepository producerWeightRepo;
+
+    @Mock
+    private RedisModeController redisMode;
+
+    @Mock
+    private ClusterLeaseService leases;
+
+    private SchedulerProperties props;
+    private QueueReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        when(redisMode.isRedisAvailable()).thenReturn(true);
+        props = new SchedulerProperties();
+        reconciler = new QueueReconciler(jobRepo, queueRepo, producerWeightRepo, redisMode, leases,
+                new SimpleMeterRegistry(), props);
+    }
+
+    @Test
+    void skipsWhileAnotherWorkerHoldsTheLease() {
+        when(leases.tryHold(LEASE, 15000L)).thenReturn(false);
+
+        assertEquals(-1, reconciler.reconcile());
+
+        verifyNoInteractions(jobRepo, queueRepo, producerWeightRepo);
+        verify(leases, never()).release(LEASE);
+    }
+
+    @Test
+    void holderReEnqueuesMissingJobsAndReleasesTheLease() {
+        QueuedJobRef missing = mock(QueuedJobRef.class);
+        when(missing.getId()).thenReturn("job-1");
+        when(missing.getPriority()).thenReturn(JobPriority.NORMAL);
+        when(missing.getProducer()).thenReturn("p");
+        when(leases.tryHold(LEASE, 15000L)).thenReturn(true);
+        when(producerWeightRepo.findAll()).thenReturn(List.of());
+        when(queueRepo.readyJobIds(JobPriority.NORMAL, "p", 0, 500)).thenReturn(List.of());
+        when(jobRepo.findQueuedPage(eq(JobStatus.QUEUED), any(), anyString(), any(), any())).thenReturn(List.of(missing));
+        when(queueRepo.filterNotDelayed(List.of(missing))).thenReturn(List.of(missing));
+
+        assertEquals(1, reconciler.reconcile());
+
+        verify(queueRepo).enqueueAll(List.of(missing));
+        verify(leases).release(LEASE);
+    }
+
+    @Test
+    void readsEachReadyListOnceAcrossPages() {
+        props.getWorker().getSweep().setLeaderElection(false);
+        props.getQueue().setHorizonLoaderBatchSize(2);
+        reconciler = new QueueReconciler(jobRepo, queueRepo, producerWeightRepo, redisMode, leases,
+                new SimpleMeterRegistry(), props);
+        List<QueuedJobRef> jobs = List.of(queued("job-1"), queued("job-2"), queued("job-3"));
+        when(producerWeightRepo.findAll()).thenReturn(List.of());
+        when(jobRepo.findQueuedPage(eq(JobStatus.QUEUED), any(), anyString(), any(), any()))
+                .thenReturn(jobs.subList(0, 2), jobs.subList(2, 3));
+        when(queueRepo.readyJobIds(JobPriority.NORMAL, "p", 0, 2)).thenReturn(List.of("job-1", "job-2"));
+        when(queueRepo.readyJobIds(JobPriority.NORMAL, "p", 2, 2)).thenReturn(List.of());
+        when(queueRepo.filterNotDelayed(List.of())).thenReturn(List.of());
+        when(queueRepo.filterNotDelayed(List.of(jobs.get(2)))).thenReturn(List.of(jobs.get(2)));
+
+        assertEquals(1, reconciler.reconcile());
+
+        verify(queueRepo).enqueueAll(List.of(jobs.get(2)));
+    }
+
+    @Test
+    void stopsOnceItCannotRenewTheLease() {
+        props.getQueue().setHorizonLoaderBatchSize(1);
+        reconciler = new QueueReconciler(jobRepo, queueRepo, producerWeightRepo, redisMode, leases,
+                new SimpleMeterRegistry(), props);
+        QueuedJobRef queued = mock(QueuedJobRef.class);
+        when(queued.getId()).thenReturn("job-1");
+        when(queued.getPriority()).thenReturn(JobPriority.NORMAL);
+        when(queued.getProducer()).thenReturn("p");
+        when(leases.tryHold(LEASE, 15000L)).thenReturn(true, false);
+        when(producerWeightRepo.findAll()).thenReturn(List.of());
+        when(queueRepo.readyJobIds(JobPriority.NORMAL, "p", 0, 1)).thenReturn(List.of());
+        when(jobRepo.findQueuedPage(eq(JobStatus.QUEUED), any(), anyString(), any(), any())).thenReturn(List.of(queued));
+        when(queueRepo.filterNotDelayed(List.of(queued))).thenReturn(List.of());
+
+        assertEquals(-1, reconciler.reconcile());
+
+        verify(queueRepo, never()).enqueueAll(any());
+        verify(leases).release(LEASE);
+    }
+
+    private static QueuedJobRef queued(String id) {
+        QueuedJobRef job = mock(QueuedJobRef.class);
+        when(job.getId()).thenReturn(id);
+        when(job.getPriority()).thenReturn(JobPriority.NORMAL);
+        when(job.getProducer()).thenReturn("p");
+        return job;
+    }
+}
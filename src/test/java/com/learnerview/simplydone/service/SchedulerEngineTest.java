@@ -4,20 +4,39 @@ import com.learnerview.simplydone.config.SchedulerProperties;
 import com.learnerview.simplydone.entity.JobEntity;
 import com.learnerview.simplydone.model.JobPriority;
 import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.ClaimedJob;
+import com.learnerview.simplydone.repository.JobDestination;
 import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.LanePromotion;
 import com.learnerview.simplydone.repository.QueueRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
 
 import java.time.Instant;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -34,10 +53,26 @@ class SchedulerEngineTest {
     @Mock
     private JobExecutorService executor;
 
+    @Mock
+    private RedisModeController redisMode;
+
+    @Mock
+    private JobDurationEstimator durations;
+
+    @Mock
+    private HostIsolationService hostIsolation;
+
+    @BeforeEach
+    void redisUp() {
+        lenient().when(redisMode.isRedisAvailable()).thenReturn(true);
+        lenient().when(durations.relativeCost(any(JobEntity.class))).thenReturn(1.0);
+        lenient().when(queueRepo.promoteDue(any(JobPriority.class), anyInt())).thenReturn(ready(0));
+    }
+
     @Test
     void pollClaimsHighestPriorityReadyJob() {
         SchedulerProperties props = new SchedulerProperties();
-        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, props);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
 
         JobEntity job = JobEntity.builder()
                 .id("job-1")
@@ -48,34 +83,372 @@ class SchedulerEngineTest {
                 .nextRunAt(Instant.now())
                 .build();
 
-        when(queueRepo.queueSize(JobPriority.HIGH)).thenReturn(1L);
-        when(queueRepo.claimNextReady(JobPriority.HIGH)).thenReturn(Optional.of("job-1"));
-        when(jobRepo.claimForExecution(anyString(), anyString(), anyString(), any(Instant.class), any(Instant.class),
-                eq(JobStatus.QUEUED), eq(JobStatus.RUNNING))).thenReturn(1);
-        when(jobRepo.findById("job-1")).thenReturn(Optional.of(job));
+        when(queueRepo.promoteDue(eq(JobPriority.HIGH), anyInt())).thenReturn(ready(1));
+        when(queueRepo.claimReady(JobPriority.HIGH, 1)).thenReturn(List.of(new ClaimedJob("job-1", "tenant")), List.of());
+        when(jobRepo.leaseForExecution(eq(List.of("job-1")), anyString(), anyString(), any(Instant.class),
+                any(Instant.class))).thenReturn(List.of(job));
+
+        schedulerEngine.poll();
+
+        verify(queueRepo, times(2)).claimReady(JobPriority.HIGH, 1);
+        verify(queueRepo, never()).claimReady(eq(JobPriority.NORMAL), anyInt());
+        verify(queueRepo, never()).claimReady(eq(JobPriority.LOW), anyInt());
+        verify(executor, timeout(1000)).execute(job);
+        verify(jobRepo, never()).findById(anyString());
+        // No host is at its limit, so the claim goes to the lease without a destination read.
+        verify(jobRepo, never()).findDestinations(anyList());
+        schedulerEngine.shutdown();
+    }
+
+    @Test
+    void jobsForAHostAtItsLimitGoBackToTheQueueUnleased() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setConcurrency(3);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        List<ClaimedJob> claimed = List.of(new ClaimedJob("job-1", "tenant"), new ClaimedJob("job-2", "tenant"),
+                new ClaimedJob("job-3", "tenant"));
+        List<JobDestination> destinations = claimed.stream()
+                .map(c -> destination(c.id(), "https://busy.example/hook"))
+                .toList();
+        JobEntity leasedJob = JobEntity.builder().id("job-1").priority(JobPriority.HIGH).build();
+        when(queueRepo.promoteDue(eq(JobPriority.HIGH), anyInt())).thenReturn(ready(3), ready(0));
+        when(queueRepo.claimReady(eq(JobPriority.HIGH), anyInt())).thenReturn(claimed, List.of());
+        when(hostIsolation.anyHostAtLimit()).thenReturn(true);
+        when(jobRepo.findDestinations(List.of("job-1", "job-2", "job-3"))).thenReturn(destinations);
+        when(hostIsolation.spareCapacity("busy.example")).thenReturn(1);
+        when(hostIsolation.busyDeferMs()).thenReturn(500L);
+        when(jobRepo.leaseForExecution(eq(List.of("job-1")), anyString(), anyString(), any(Instant.class),
+                any(Instant.class))).thenReturn(List.of(leasedJob));
+
+        long before = System.currentTimeMillis();
+        schedulerEngine.poll();
+
+        verify(queueRepo).deferClaimed(eq(claimed.subList(1, 3)), eq(JobPriority.HIGH), longThat(at -> at >= before + 500));
+        verify(queueRepo, never()).enqueue(anyString(), anyString(), any(JobPriority.class), anyLong());
+        verify(executor, timeout(1000)).execute(leasedJob);
+        schedulerEngine.shutdown();
+    }
+
+    @Test
+    void tickStopsOnceEveryClaimGoesBackForABusyHost() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setConcurrency(2);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        List<ClaimedJob> claimed = List.of(new ClaimedJob("job-1", "tenant"), new ClaimedJob("job-2", "tenant"));
+        when(queueRepo.promoteDue(eq(JobPriority.HIGH), anyInt())).thenReturn(ready(100));
+        when(queueRepo.claimReady(eq(JobPriority.HIGH), anyInt())).thenReturn(claimed);
+        when(hostIsolation.anyHostAtLimit()).thenReturn(true);
+        when(jobRepo.findDestinations(List.of("job-1", "job-2"))).thenReturn(claimed.stream()
+                .map(c -> destination(c.id(), "https://busy.example/hook"))
+                .toList());
+        when(hostIsolation.spareCapacity("busy.example")).thenReturn(0);
+
+        schedulerEngine.poll();
+
+        verify(queueRepo, times(1)).claimReady(eq(JobPriority.HIGH), anyInt());
+        verify(queueRepo).deferClaimed(eq(claimed), eq(JobPriority.HIGH), anyLong());
+        verifyNoInteractions(executor);
+        schedulerEngine.shutdown();
+    }
+
+    private static JobDestination destination(String id, String endpoint) {
+        return new JobDestination() {
+            @Override
+            public String getId() {
+                return id;
+            }
+
+            @Override
+            public String getExecutionType() {
+                return "HTTP";
+            }
+
+            @Override
+            public String getExecutionEndpoint() {
+                return endpoint;
+            }
+        };
+    }
+
+    @Test
+    void pollFillsDispatchPoolWithDrrShares() throws InterruptedException {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setConcurrency(10);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(queueRepo.promoteDue(any(JobPriority.class), anyInt())).thenReturn(ready(100));
+        when(queueRepo.claimReady(any(JobPriority.class), anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(1);
+            return IntStream.range(0, count)
+                    .mapToObj(n -> new ClaimedJob(invocation.getArgument(0) + "-" + n, "tenant")).toList();
+        });
+        when(jobRepo.leaseForExecution(anyList(), anyString(), anyString(), any(Instant.class), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    List<String> ids = invocation.getArgument(0);
+                    return ids.stream().map(id -> JobEntity.builder().id(id).build()).toList();
+                });
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(executor).execute(any(JobEntity.class));
 
         schedulerEngine.poll();
 
-        verify(queueRepo).claimNextReady(JobPriority.HIGH);
-        verify(queueRepo, never()).claimNextReady(JobPriority.NORMAL);
-        verify(queueRepo, never()).claimNextReady(JobPriority.LOW);
-        verify(jobRepo).claimForExecution(eq("job-1"), anyString(), anyString(), any(Instant.class), any(Instant.class),
-                eq(JobStatus.QUEUED), eq(JobStatus.RUNNING));
-        verify(executor).execute(job);
+        assertEquals(10, schedulerEngine.inFlight());
+        verify(queueRepo).claimReady(JobPriority.HIGH, 7);
+        verify(queueRepo).claimReady(JobPriority.NORMAL, 2);
+        verify(queueRepo).claimReady(JobPriority.LOW, 1);
+        verify(jobRepo, times(3)).leaseForExecution(anyList(), anyString(), anyString(), any(Instant.class),
+                any(Instant.class));
+
+        release.countDown();
+        schedulerEngine.shutdown();
+        assertEquals(0, schedulerEngine.inFlight());
+    }
+
+    @Test
+    void asyncModeKeepsMoreJobsInFlightThanWorkerThreads() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setConcurrency(2);
+        props.getWorker().setExecutionMode(SchedulerProperties.ExecutionMode.ASYNC);
+        props.getWorker().setMaxInFlight(50);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        when(queueRepo.promoteDue(any(JobPriority.class), anyInt())).thenReturn(ready(100));
+        when(queueRepo.claimReady(any(JobPriority.class), anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(1);
+            return IntStream.range(0, count)
+                    .mapToObj(n -> new ClaimedJob(invocation.getArgument(0) + "-" + n, "tenant")).toList();
+        });
+        when(jobRepo.leaseForExecution(anyList(), anyString(), anyString(), any(Instant.class), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    List<String> ids = invocation.getArgument(0);
+                    return ids.stream().map(id -> JobEntity.builder().id(id).build()).toList();
+                });
+        when(executor.executeAsync(any(JobEntity.class))).thenAnswer(invocation -> {
+            CompletableFuture<Void> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+
+        schedulerEngine.poll();
+
+        assertEquals(50, schedulerEngine.inFlight());
+        verify(executor, never()).execute(any(JobEntity.class));
+
+        calls.forEach(call -> call.complete(null));
+        assertEquals(0, schedulerEngine.inFlight());
+        schedulerEngine.shutdown();
+    }
+
+    @Test
+    void batchedJobsDoNotHoldDispatchThreadsInBlockingMode() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setConcurrency(2);
+        props.getWorker().setMaxInFlight(20);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        when(queueRepo.promoteDue(any(JobPriority.class), anyInt())).thenReturn(ready(100));
+        when(queueRepo.claimReady(any(JobPriority.class), anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(1);
+            return IntStream.range(0, count)
+                    .mapToObj(n -> new ClaimedJob(invocation.getArgument(0) + "-" + n, "tenant")).toList();
+        });
+        when(jobRepo.leaseForExecution(anyList(), anyString(), anyString(), any(Instant.class), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    List<String> ids = invocation.getArgument(0);
+                    return ids.stream()
+                            .map(id -> JobEntity.builder().id(id).executionType("BATCH_HTTP").build()).toList();
+                });
+        when(executor.executeAsync(any(JobEntity.class))).thenAnswer(invocation -> {
+            CompletableFuture<Void> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+
+        schedulerEngine.poll();
+
+        assertEquals(20, schedulerEngine.inFlight());
+        verify(executor, never()).execute(any(JobEntity.class));
+
+        calls.forEach(call -> call.complete(null));
+        assertEquals(0, schedulerEngine.inFlight());
+        schedulerEngine.shutdown();
+    }
+
+    @Test
+    void laneOfExpensiveJobsIsChargedForTheirExpectedDuration() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setExecutionMode(SchedulerProperties.ExecutionMode.ASYNC);
+        props.getWorker().setMaxInFlight(10);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        when(queueRepo.promoteDue(any(JobPriority.class), anyInt())).thenReturn(ready(100));
+        when(queueRepo.claimReady(any(JobPriority.class), anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(1);
+            return IntStream.range(0, count)
+                    .mapToObj(n -> new ClaimedJob(invocation.getArgument(0) + "-" + n, "tenant")).toList();
+        });
+        when(jobRepo.leaseForExecution(anyList(), anyString(), anyString(), any(Instant.class), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    List<String> ids = invocation.getArgument(0);
+                    return ids.stream().map(id -> JobEntity.builder().id(id).build()).toList();
+                });
+        when(durations.relativeCost(any(JobEntity.class))).thenAnswer(invocation ->
+                invocation.<JobEntity>getArgument(0).getId().startsWith("HIGH") ? 5.0 : 1.0);
+        when(executor.executeAsync(any(JobEntity.class))).thenAnswer(invocation -> {
+            CompletableFuture<Void> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+
+        schedulerEngine.poll();
+        verify(queueRepo).claimReady(JobPriority.HIGH, 7);
+        new ArrayList<>(calls).forEach(call -> call.complete(null));
+        schedulerEngine.poll();
+
+        verify(queueRepo, times(1)).claimReady(eq(JobPriority.HIGH), anyInt());
+        verify(queueRepo, times(2)).claimReady(eq(JobPriority.NORMAL), anyInt());
+        schedulerEngine.shutdown();
+    }
+
+    @Test
+    void heartbeatExtendsInFlightLeasesUntilTheirTimeoutRunsOut() throws InterruptedException {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setExecutionMode(SchedulerProperties.ExecutionMode.ASYNC);
+        props.getWorker().setMaxInFlight(2);
+        props.getWorker().setLeaseGraceSeconds(0);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        when(queueRepo.promoteDue(any(JobPriority.class), anyInt())).thenReturn(ready(0));
+        when(queueRepo.promoteDue(eq(JobPriority.HIGH), anyInt())).thenReturn(ready(2));
+        when(queueRepo.claimReady(JobPriority.HIGH, 2))
+                .thenReturn(List.of(new ClaimedJob("slow", "tenant"), new ClaimedJob("stuck", "tenant")));
+        when(jobRepo.leaseForExecution(anyList(), anyString(), anyString(), any(Instant.class), any(Instant.class)))
+                .thenReturn(List.of(JobEntity.builder().id("slow").timeoutSeconds(120).build(),
+                        JobEntity.builder().id("stuck").timeoutSeconds(1).build()));
+        CompletableFuture<Void> slowCall = new CompletableFuture<>();
+        when(executor.executeAsync(any(JobEntity.class))).thenReturn(slowCall);
+
+        schedulerEngine.poll();
+        Thread.sleep(1100);
+        schedulerEngine.extendLeases();
+
+        verify(jobRepo).extendLeases(eq(List.of("slow")), eq(schedulerEngine.workerId()), eq(JobStatus.RUNNING),
+                any(Instant.class));
+
+        slowCall.complete(null);
+        schedulerEngine.extendLeases();
+        verify(jobRepo, times(1)).extendLeases(anyList(), anyString(), any(JobStatus.class), any(Instant.class));
+        schedulerEngine.shutdown();
+    }
+
+    @Test
+    void pollLeasesDisjointDatabaseBatchesWhenRedisIsDown() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setConcurrency(10);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        when(queueRepo.promoteDue(any(JobPriority.class), anyInt()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(jobRepo.leaseDueForExecution(eq(JobPriority.HIGH), anyInt(), anyString(), anyString(),
+                any(Instant.class), any(Instant.class))).thenReturn(List.of(JobEntity.builder().id("high-1").build()));
+        when(jobRepo.leaseDueForExecution(eq(JobPriority.NORMAL), anyInt(), anyString(), anyString(),
+                any(Instant.class), any(Instant.class))).thenReturn(List.of());
+        when(jobRepo.leaseDueForExecution(eq(JobPriority.LOW), anyInt(), anyString(), anyString(),
+                any(Instant.class), any(Instant.class))).thenReturn(List.of());
+
+        schedulerEngine.poll();
+
+        verify(jobRepo).leaseDueForExecution(eq(JobPriority.HIGH), eq(7), anyString(), anyString(),
+                any(Instant.class), any(Instant.class));
+        verify(jobRepo).leaseDueForExecution(eq(JobPriority.NORMAL), eq(2), anyString(), anyString(),
+                any(Instant.class), any(Instant.class));
+        verify(jobRepo).leaseDueForExecution(eq(JobPriority.LOW), eq(1), anyString(), anyString(),
+                any(Instant.class), any(Instant.class));
+        verify(executor, timeout(1000)).execute(any(JobEntity.class));
+        schedulerEngine.shutdown();
+    }
+
+    @Test
+    void databaseFallbackTriesOtherLanesWhenFavouredLaneIsEmpty() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setConcurrency(1);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        when(queueRepo.promoteDue(any(JobPriority.class), anyInt())).thenThrow(new RedisConnectionFailureException("down"));
+        when(jobRepo.leaseDueForExecution(eq(JobPriority.HIGH), anyInt(), anyString(), anyString(),
+                any(Instant.class), any(Instant.class))).thenReturn(List.of());
+        when(jobRepo.leaseDueForExecution(eq(JobPriority.NORMAL), anyInt(), anyString(), anyString(),
+                any(Instant.class), any(Instant.class))).thenReturn(List.of(JobEntity.builder().id("normal-1").build()));
+
+        // The only free slot goes to HIGH by weight; its empty lease must not waste the pass.
+        schedulerEngine.poll();
+
+        verify(jobRepo).leaseDueForExecution(eq(JobPriority.HIGH), eq(1), anyString(), anyString(),
+                any(Instant.class), any(Instant.class));
+        // The mocked executor frees the slot at once, so the pass may lease NORMAL again.
+        verify(executor, timeout(1000).atLeastOnce()).execute(any(JobEntity.class));
+        schedulerEngine.shutdown();
+    }
+
+    @Test
+    void databaseModeSkipsRedisEntirely() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getWorker().setConcurrency(1);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        when(redisMode.isRedisAvailable()).thenReturn(false);
+        when(jobRepo.leaseDueForExecution(any(JobPriority.class), anyInt(), anyString(), anyString(),
+                any(Instant.class), any(Instant.class))).thenReturn(List.of());
+
+        schedulerEngine.poll();
+
+        verifyNoInteractions(queueRepo);
+        verify(jobRepo, times(3)).leaseDueForExecution(any(JobPriority.class), eq(1), anyString(), anyString(),
+                any(Instant.class), any(Instant.class));
+        schedulerEngine.shutdown();
     }
 
     @Test
     void pollStopsWhenNoReadyJobsExist() {
         SchedulerProperties props = new SchedulerProperties();
-        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, props);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
 
-        when(queueRepo.queueSize(JobPriority.HIGH)).thenReturn(0L);
-        when(queueRepo.queueSize(JobPriority.NORMAL)).thenReturn(0L);
-        when(queueRepo.queueSize(JobPriority.LOW)).thenReturn(0L);
+        when(queueRepo.promoteDue(eq(JobPriority.HIGH), anyInt())).thenReturn(ready(0));
+        when(queueRepo.promoteDue(eq(JobPriority.NORMAL), anyInt())).thenReturn(ready(0));
+        when(queueRepo.promoteDue(eq(JobPriority.LOW), anyInt())).thenReturn(ready(0));
 
         schedulerEngine.poll();
 
-        verify(queueRepo, never()).claimNextReady(any(JobPriority.class));
+        verify(queueRepo, never()).claimReady(any(JobPriority.class), anyInt());
         verifyNoInteractions(jobRepo, executor);
     }
-}
\ No newline at end of file
+
+    @Test
+    void idleDispatcherWakesWhenThePromotedDueTimeArrives() {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getScheduler().getWakeup().setEnabled(true);
+        SchedulerEngine schedulerEngine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode, durations, hostIsolation, props);
+
+        when(queueRepo.promoteDue(eq(JobPriority.LOW), anyInt()))
+                .thenReturn(new LanePromotion(0, System.currentTimeMillis() + 300), ready(0));
+
+        schedulerEngine.start();
+
+        // The safety poll is 30s away, so a second tick within 2s can only come from the due time.
+        verify(queueRepo, timeout(2000).times(2)).promoteDue(eq(JobPriority.LOW), anyInt());
+        verify(queueRepo, never()).claimReady(any(JobPriority.class), anyInt());
+        schedulerEngine.shutdown();
+    }
+
+    private static LanePromotion ready(long count) {
+        return new LanePromotion(count, null);
+    }
+}
@@ -0,0 +1,145 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.model.JobPriority;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.RedisQueueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Enqueue-to-dispatch latency with fixed polling and with wake-ups. Needs {@code -Dsimplydone.bench.redis-url}
+ * and {@code -Dsimplydone.bench.wakeup=true}.
+ */
+@EnabledIfSystemProperty(named = "simplydone.bench.redis-url", matches = ".+")
+@EnabledIfSystemProperty(named = "simplydone.bench.wakeup", matches = "true")
+class WakeupLatencyBenchmark {
+
+    private static final String PREFIX = "simplydone:bench:wakeup";
+
+    private final int jobs = Integer.getInteger("simplydone.bench.jobs", 50);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+
+    @BeforeEach
+    void setUp() {
+        URI uri = URI.create(System.getProperty("simplydone.bench.redis-url"));
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(uri.getHost(), uri.getPort() > 0 ? uri.getPort() : 6379));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void compareFixedPollingWithWakeups() throws InterruptedException {
+        long[] polling = run(false);
+        long[] wakeups = run(true);
+
+        report("fixed 1s polling", polling);
+        report("wake-up", wakeups);
+        assertTrue(percentile(wakeups, 50) < percentile(polling, 50));
+    }
+
+    /** Latencies in microseconds, one per job, sorted. */
+    private long[] run(boolean wakeupEnabled) throws InterruptedException {
+        SchedulerProperties props = new SchedulerProperties();
+        props.getScheduler().setQueuePrefix(PREFIX);
+        props.getScheduler().getWakeup().setEnabled(wakeupEnabled);
+        props.getScheduler().getWakeup().setChannel(PREFIX + ":channel");
+        props.getScheduler().getCost().setEnabled(false);
+        RedisQueueRepository queueRepo = new RedisQueueRepository(redis, props);
+        queueRepo.clearAll();
+
+        Map<String, Long> enqueuedAt = new ConcurrentHashMap<>();
+        Map<String, CountDownLatch> done = new ConcurrentHashMap<>();
+        long[] latencies = new long[jobs];
+
+        JobEntityRepository jobRepo = mock(JobEntityRepository.class);
+        when(jobRepo.leaseForExecution(anyList(), anyString(), anyString(), any(Instant.class), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    List<String> ids = invocation.getArgument(0);
+                    return ids.stream().map(id -> JobEntity.builder().id(id).build()).toList();
+                });
+        JobExecutorService executor = mock(JobExecutorService.class);
+        doAnswer(invocation -> {
+            JobEntity job = invocation.getArgument(0);
+            long micros = (System.nanoTime() - enqueuedAt.get(job.getId())) / 1000;
+            latencies[Integer.parseInt(job.getId().substring(job.getId().lastIndexOf('-') + 1))] = micros;
+            done.get(job.getId()).countDown();
+            return null;
+        }).when(executor).execute(any(JobEntity.class));
+        RedisModeController redisMode = mock(RedisModeController.class);
+        when(redisMode.isRedisAvailable()).thenReturn(true);
+
+        SchedulerEngine engine = new SchedulerEngine(queueRepo, jobRepo, executor, redisMode,
+                mock(JobDurationEstimator.class), mock(HostIsolationService.class), props);
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> engine.wakeUp(),
+                new ChannelTopic(props.getScheduler().getWakeup().getChannel()));
+        container.afterPropertiesSet();
+        container.start();
+        engine.start();
+        try {
+            for (int i = 0; i < jobs; i++) {
+                // A gap spread over a whole polling interval, so the polling run does not lock step with it.
+                Thread.sleep(ThreadLocalRandom.current().nextLong(20, 20 + props.getScheduler().getPollingIntervalMs()));
+                String id = UUID.randomUUID() + "-" + i;
+                CountDownLatch latch = new CountDownLatch(1);
+                done.put(id, latch);
+                enqueuedAt.put(id, System.nanoTime());
+                queueRepo.enqueue(id, "bench", JobPriority.NORMAL, System.currentTimeMillis());
+                assertTrue(latch.await(5, TimeUnit.SECONDS), "job " + i + " was not dispatched");
+            }
+        } finally {
+            engine.shutdown();
+            container.stop();
+            queueRepo.clearAll();
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private void report(String mode, long[] micros) {
+        System.out.printf("%-17s jobs %d  p50 %6.1fms  p95 %6.1fms  p99 %6.1fms  max %6.1fms%n", mode, micros.length,
+                percentile(micros, 50) / 1000.0, percentile(micros, 95) / 1000.0,
+                percentile(micros, 99) / 1000.0, micros[micros.length - 1] / 1000.0);
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p / 100.0 * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,81 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.ApiKeyEntity;
+import com.learnerview.simplydone.repository.ApiKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookSignerTest {
+
+    @Mock
+    private ApiKeyRepository apiKeyRepo;
+
+    private WebhookSigner signer;
+
+    @BeforeEach
+    void setUp() {
+        signer = new WebhookSigner(apiKeyRepo, new SchedulerProperties());
+    }
+
+    private static ApiKeyEntity key(String secret) {
+        return ApiKeyEntity.builder().apiKey(secret).producer("p1").active(true).build();
+    }
+
+    private static String expected(String secret, byte[] body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+    }
+
+    @Test
+    void signsWithCachedKeyAndReusedMac() throws Exception {
+        when(apiKeyRepo.findFirstByProducerAndActiveTrueOrderByCreatedAtDesc("p1"))
+                .thenReturn(Optional.of(key("sd_sk_one")));
+        byte[] first = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "{\"b\":2}".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(expected("sd_sk_one", first), signer.sign("p1", first));
+        assertEquals(expected("sd_sk_one", second), signer.sign("p1", second));
+
+        verify(apiKeyRepo, times(1)).findFirstByProducerAndActiveTrueOrderByCreatedAtDesc("p1");
+    }
+
+    @Test
+    void invalidationPicksUpTheNewKey() throws Exception {
+        when(apiKeyRepo.findFirstByProducerAndActiveTrueOrderByCreatedAtDesc("p1"))
+                .thenReturn(Optional.of(key("sd_sk_old")), Optional.of(key("sd_sk_new")));
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(expected("sd_sk_old", body), signer.sign("p1", body));
+        signer.invalidate("p1");
+        assertEquals(expected("sd_sk_new", body), signer.sign("p1", body));
+    }
+
+    @Test
+    void producerWithoutActiveKeyIsUnsignedAndCached() {
+        when(apiKeyRepo.findFirstByProducerAndActiveTrueOrderByCreatedAtDesc("p1")).thenReturn(Optional.empty());
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(signer.sign("p1", body));
+        assertNull(signer.sign("p1", body));
+
+        verify(apiKeyRepo, times(1)).findFirstByProducerAndActiveTrueOrderByCreatedAtDesc("p1");
+    }
+}
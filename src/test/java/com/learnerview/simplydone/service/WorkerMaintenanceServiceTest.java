@@ -0,0 +1,167 @@
+package com.learnerview.simplydone.service;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.model.JobPriority;
+import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.repository.QueueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkerMaintenanceServiceTest {
+
+    private static final String HELP = WorkerMaintenanceService.RETRY_PROMOTER + ":help";
+
+    @Mock
+    private JobEntityRepository jobRepo;
+
+    @Mock
+    private QueueRepository queueRepo;
+
+    @Mock
+    private RetryService retryService;
+
+    @Mock
+    private RedisModeController redisMode;
+
+    @Mock
+    private ClusterLeaseService leases;
+
+    private SchedulerProperties props;
+    private WorkerMaintenanceService maintenance;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisMode.isRedisAvailable()).thenReturn(true);
+        props = new SchedulerProperties();
+        props.getWorker().getSweep().setBatchSize(2);
+        props.getWorker().getSweep().setMaxBatchesPerTick(3);
+        maintenance = new WorkerMaintenanceService(jobRepo, queueRepo, retryService, redisMode, leases, props);
+    }
+
+    @Test
+    void workerWithoutTheLeaseLeavesTheSweepAlone() {
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER), anyLong())).thenReturn(false);
+
+        maintenance.promoteRetries();
+
+        verifyNoInteractions(jobRepo);
+    }
+
+    @Test
+    void backloggedLeaderDrainsItsBudgetAndAsksForHelp() {
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER), anyLong())).thenReturn(true);
+        when(jobRepo.findDueInPartition(eq(JobStatus.RETRY_SCHEDULED), any(Instant.class), eq(""), eq("g"), any()))
+                .thenAnswer(invocation -> List.of(dueJob("a"), dueJob("b")));
+
+        maintenance.promoteRetries();
+
+        verify(jobRepo, times(3)).findDueInPartition(any(), any(), eq(""), eq("g"), any());
+        verify(jobRepo, times(6)).save(any(JobEntity.class));
+        verify(leases).tryHold(HELP, props.getWorker().getSweep().getHelpMs());
+    }
+
+    @Test
+    void leaderStopsDrainingOnceItCannotRenewTheLease() {
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER), anyLong())).thenReturn(true, true, false);
+        when(jobRepo.findDueInPartition(eq(JobStatus.RETRY_SCHEDULED), any(Instant.class), eq(""), eq("g"), any()))
+                .thenAnswer(invocation -> List.of(dueJob("a"), dueJob("b")));
+
+        maintenance.promoteRetries();
+
+        verify(jobRepo, times(2)).findDueInPartition(any(), any(), eq(""), eq("g"), any());
+        verify(leases, never()).tryHold(eq(HELP), anyLong());
+    }
+
+    @Test
+    void leaderThatCatchesUpDoesNotAskForHelp() {
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER), anyLong())).thenReturn(true);
+        when(jobRepo.findDueInPartition(any(), any(), eq(""), eq("g"), any())).thenReturn(List.of(dueJob("a")));
+
+        maintenance.promoteRetries();
+
+        verify(jobRepo, times(1)).findDueInPartition(any(), any(), anyString(), anyString(), any());
+        verify(leases, never()).tryHold(eq(HELP), anyLong());
+    }
+
+    @Test
+    void helperSweepsTheFirstPartitionItCanHold() {
+        when(leases.isHeld(HELP)).thenReturn(true);
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER), anyLong())).thenReturn(false);
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER + ":1"), anyLong())).thenReturn(false);
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER + ":2"), anyLong())).thenReturn(true);
+        when(jobRepo.findDueInPartition(any(), any(), eq("8"), eq("c"), any())).thenReturn(List.of());
+
+        maintenance.promoteRetries();
+
+        verify(jobRepo, times(1)).findDueInPartition(any(), any(), anyString(), anyString(), any());
+        verify(leases, never()).tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER + ":3"), anyLong());
+    }
+
+    @Test
+    void helpedLeaderAlsoSweepsPartitionsNoHelperHolds() {
+        when(leases.isHeld(HELP)).thenReturn(true);
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER), anyLong())).thenReturn(true);
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER + ":1"), anyLong())).thenReturn(false);
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER + ":2"), anyLong())).thenReturn(true);
+        when(leases.tryHold(eq(WorkerMaintenanceService.RETRY_PROMOTER + ":3"), anyLong())).thenReturn(true);
+        when(jobRepo.findDueInPartition(any(), any(), anyString(), anyString(), any())).thenReturn(List.of());
+
+        maintenance.promoteRetries();
+
+        verify(jobRepo).findDueInPartition(any(), any(), eq(""), eq("4"), any());
+        verify(jobRepo, never()).findDueInPartition(any(), any(), eq("4"), eq("8"), any());
+        verify(jobRepo).findDueInPartition(any(), any(), eq("8"), eq("c"), any());
+        verify(jobRepo).findDueInPartition(any(), any(), eq("c"), eq("g"), any());
+        verify(leases).release(WorkerMaintenanceService.RETRY_PROMOTER + ":2");
+    }
+
+    @Test
+    void everyWorkerSweepsWhenLeaderElectionIsOff() {
+        props.getWorker().getSweep().setLeaderElection(false);
+        when(jobRepo.findExpiredInPartition(any(), any(), eq(""), eq("g"), any())).thenReturn(List.of());
+
+        maintenance.recoverExpiredLeases();
+
+        verifyNoInteractions(leases);
+    }
+
+    @Test
+    void partitionsSplitTheIdSpaceIntoAdjacentRanges() {
+        assertEquals(List.of("", "4", "8", "c", "g"), IntStream.rangeClosed(0, 4)
+                .mapToObj(partition -> WorkerMaintenanceService.lowerId(partition, 4)).toList());
+        assertEquals(List.of("", "5", "a", "g"), IntStream.rangeClosed(0, 3)
+                .mapToObj(partition -> WorkerMaintenanceService.lowerId(partition, 3)).toList());
+    }
+
+    private static JobEntity dueJob(String id) {
+        return JobEntity.builder()
+                .id(id)
+                .producer("tenant")
+                .status(JobStatus.RETRY_SCHEDULED)
+                .priority(JobPriority.NORMAL)
+                .nextRunAt(Instant.now())
+                .build();
+    }
+}
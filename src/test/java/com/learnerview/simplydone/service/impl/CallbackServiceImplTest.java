@@ -0,0 +1,86 @@
+package com.learnerview.simplydone.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.CallbackDeliveryEntity;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.model.CallbackStatus;
+import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.CallbackDeliveryRepository;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CallbackServiceImplTest {
+
+    @Mock
+    private JobEntityRepository jobRepo;
+
+    @Mock
+    private CallbackDeliveryRepository callbackRepo;
+
+    private CallbackServiceImpl callbackService;
+
+    @BeforeEach
+    void setUp() {
+        callbackService = new CallbackServiceImpl(jobRepo, callbackRepo, new ObjectMapper().findAndRegisterModules(),
+                new SchedulerProperties());
+    }
+
+    private static JobEntity finishedJob(String callbackUrl) {
+        return JobEntity.builder()
+                .id("job-1")
+                .producer("tenant-a")
+                .jobType("webhook")
+                .status(JobStatus.SUCCESS)
+                .callbackUrl(callbackUrl)
+                .build();
+    }
+
+    @Test
+    void savesTheJobAndItsCallbackRow() {
+        JobEntity job = finishedJob("https://example.com/done");
+
+        callbackService.saveCompleted(job);
+
+        verify(jobRepo).save(job);
+        ArgumentCaptor<CallbackDeliveryEntity> row = ArgumentCaptor.forClass(CallbackDeliveryEntity.class);
+        verify(callbackRepo).save(row.capture());
+        assertEquals(CallbackStatus.PENDING, row.getValue().getStatus());
+        assertEquals("https://example.com/done", row.getValue().getCallbackUrl());
+        assertTrue(row.getValue().getPayload().contains("\"status\":\"SUCCESS\""));
+    }
+
+    @Test
+    void jobWithoutCallbackUrlOnlySavesTheJob() {
+        JobEntity job = finishedJob(null);
+
+        callbackService.saveCompleted(job);
+
+        verify(jobRepo).save(job);
+        verifyNoInteractions(callbackRepo);
+    }
+
+    @Test
+    void outboxFailureIsNotSwallowed() {
+        when(callbackRepo.save(any(CallbackDeliveryEntity.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> callbackService.saveCompleted(finishedJob("https://example.com/done")));
+    }
+}
@@ -0,0 +1,46 @@
+package com.learnerview.simplydone.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CappedBodyTest {
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void smallBodyIsKeptWhole() {
+        CappedBody body = new CappedBody(16, 64, 11, StandardCharsets.UTF_8);
+
+        assertTrue(body.append(bytes("{\"ok\":true}"), 0, 11));
+
+        assertEquals(new CappedBody.Result("{\"ok\":true}", 11, false), body.result(true));
+    }
+
+    @Test
+    void bodyPastTheCaptureLimitIsCountedButNotKept() {
+        CappedBody body = new CappedBody(4, 64, -1, StandardCharsets.UTF_8);
+
+        assertTrue(body.append(bytes("abcdef"), 0, 6));
+        assertTrue(body.append(ByteBuffer.wrap(bytes("ghij"))));
+
+        assertEquals(new CappedBody.Result("abcd", 10, true), body.result(true));
+    }
+
+    @Test
+    void bodyPastTheDiscardLimitIsAbandonedWithItsDeclaredLength() {
+        CappedBody body = new CappedBody(4, 8, 50_000_000, StandardCharsets.UTF_8);
+
+        assertTrue(body.append(bytes("abcd"), 0, 4));
+        assertFalse(body.append(bytes("efgh"), 0, 4));
+
+        assertEquals(new CappedBody.Result("abcd", 50_000_000, true), body.result(false));
+    }
+}
@@ -0,0 +1,351 @@
+package com.learnerview.simplydone.service.impl;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.model.JobPriority;
+import com.learnerview.simplydone.model.JobStatus;
+import com.learnerview.simplydone.repository.JobEntityRepository;
+import com.learnerview.simplydone.service.CallbackService;
+import com.learnerview.simplydone.service.HostIsolationService;
+import com.learnerview.simplydone.service.JobDurationEstimator;
+import com.learnerview.simplydone.service.JobHandler;
+import com.learnerview.simplydone.service.JobHandlerRegistry;
+import com.learnerview.simplydone.service.RetryService;
+import com.learnerview.simplydone.service.SseEmitterService;
+import com.learnerview.simplydone.service.WebhookSigner;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobExecutorServiceImplTest {
+
+    @Mock
+    private JobEntityRepository jobRepo;
+
+    @Mock
+    private RetryService retryService;
+
+    @Mock
+    private SseEmitterService sseEmitterService;
+
+    @Mock
+    private CloseableHttpClient httpClient;
+
+    @Mock
+    private ObjectProvider<CloseableHttpAsyncClient> asyncClient;
+
+    @Mock
+    private ObjectProvider<ExecutorService> completionExecutor;
+
+    @Mock
+    private HostIsolationService hostIsolation;
+
+    @Mock
+    private WebhookSigner signer;
+
+    @Mock
+    private CallbackService callbackService;
+
+    @Mock
+    private WebhookBatcher batcher;
+
+    private final SchedulerProperties props = new SchedulerProperties();
+    private JobExecutorServiceImpl executor;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(
+            Map.of("webhookHost", CircuitBreakerConfig.ofDefaults()));
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private CloseableHttpClient webhookClient;
+    private CloseableHttpAsyncClient webhookAsyncClient;
+    private ExecutorService completions;
+    private HostIsolationService hosts;
+    private JobExecutorServiceImpl webhookExecutor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        JobHandler reindex = new JobHandler() {
+            @Override
+            public String jobType() {
+                return "reindex";
+            }
+
+            @Override
+            public String handle(JobEntity job) {
+                if (job.getPayload().contains("fail")) {
+                    throw new IllegalStateException("index locked");
+                }
+                return "x".repeat(100);
+            }
+        };
+        props.getHttp().setMaxResultBytes(10);
+        executor = new JobExecutorServiceImpl(jobRepo, retryService, sseEmitterService, httpClient, asyncClient,
+                completionExecutor, hostIsolation, signer, props, callbackService, batcher,
+                new JobHandlerRegistry(List.of(reindex)), new JobDurationEstimator(null, props));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/big", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "y".repeat(100).getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/unavailable", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/endless", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 0);
+            byte[] chunk = new byte[8192];
+            try (OutputStream out = exchange.getResponseBody()) {
+                // Far past the response limit; the client is expected to hang up long before.
+                for (int i = 0; i < 10_000; i++) {
+                    out.write(chunk);
+                }
+            } catch (IOException e) {
+                // The client dropped the connection.
+            }
+        });
+        server.createContext("/drip", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                // Each byte arrives well within the read timeout, the whole body never does.
+                for (int i = 0; i < 100; i++) {
+                    out.write('.');
+                    out.flush();
+                    Thread.sleep(200);
+                }
+            } catch (IOException | InterruptedException e) {
+                // The client dropped the connection.
+            }
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+
+        props.getHttp().setMaxResponseBytes(64 * 1024);
+        webhookClient = HttpClients.createDefault();
+        webhookAsyncClient = HttpAsyncClients.createDefault();
+        webhookAsyncClient.start();
+        completions = Executors.newSingleThreadExecutor();
+        hosts = new HostIsolationService(circuitBreakers, new SimpleMeterRegistry(), props);
+        webhookExecutor = new JobExecutorServiceImpl(jobRepo, retryService, sseEmitterService, webhookClient,
+                asyncClient, completionExecutor, hosts, signer, props, callbackService, batcher,
+                new JobHandlerRegistry(List.of()), new JobDurationEstimator(null, props));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        webhookClient.close();
+        webhookAsyncClient.close();
+        completions.shutdownNow();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private JobEntity localJob(String jobType, String payload) {
+        return JobEntity.builder()
+                .id("job-1")
+                .producer("admin")
+                .jobType(jobType)
+                .priority(JobPriority.NORMAL)
+                .status(JobStatus.RUNNING)
+                .executionType("LOCAL")
+                .payload(payload)
+                .attemptCount(0)
+                .maxAttempts(3)
+                .build();
+    }
+
+    private JobEntity webhookJob(String path, boolean async) {
+        return JobEntity.builder()
+                .id((async ? "async" : "blocking") + path)
+                .producer("admin")
+                .jobType("notify")
+                .priority(JobPriority.NORMAL)
+                .status(JobStatus.RUNNING)
+                .executionType("HTTP")
+                .executionEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + path)
+                .payload("{}")
+                .timeoutSeconds(5)
+                .attemptCount(0)
+                .maxAttempts(3)
+                .build();
+    }
+
+    /** Runs the job the way the blocking or the async execution mode would. */
+    private void run(JobEntity job, boolean async) throws Exception {
+        if (async) {
+            when(asyncClient.getIfAvailable()).thenReturn(webhookAsyncClient);
+            when(completionExecutor.getIfAvailable()).thenReturn(completions);
+            webhookExecutor.executeAsync(job).get(10, TimeUnit.SECONDS);
+        } else {
+            webhookExecutor.execute(job);
+        }
+    }
+
+    @Test
+    void largeResponseSucceedsWithOnlyItsFirstBytesKept() throws Exception {
+        for (boolean async : new boolean[] {false, true}) {
+            JobEntity job = webhookJob("/big", async);
+
+            run(job, async);
+
+            assertEquals(JobStatus.SUCCESS, job.getStatus());
+            assertEquals("y".repeat(10), job.getResult());
+            assertEquals(100L, job.getResultBytes());
+            assertTrue(job.isResultTruncated());
+            verify(callbackService).saveCompleted(job);
+        }
+    }
+
+    @Test
+    void responsePastTheDiscardLimitIsAbandonedButStillSucceeds() throws Exception {
+        for (boolean async : new boolean[] {false, true}) {
+            JobEntity job = webhookJob("/endless", async);
+
+            run(job, async);
+
+            assertEquals(JobStatus.SUCCESS, job.getStatus());
+            assertEquals(10, job.getResult().length());
+            assertTrue(job.isResultTruncated());
+            assertTrue(job.getResultBytes() >= 64 * 1024, "counted up to the limit: " + job.getResultBytes());
+            verify(callbackService).saveCompleted(job);
+        }
+    }
+
+    @Test
+    void slowBodyIsCancelledOnceTheJobsTimeoutHasPassed() throws Exception {
+        for (boolean async : new boolean[] {false, true}) {
+            JobEntity job = webhookJob("/drip", async);
+            job.setTimeoutSeconds(1);
+            long start = System.currentTimeMillis();
+
+            run(job, async);
+
+            verify(retryService).handleFailure(eq(job), eq("Webhook call exceeded its 1 s timeout"), anyLong());
+            assertTrue(System.currentTimeMillis() - start < 5_000, "cancelled near the deadline");
+        }
+    }
+
+    @Test
+    void errorStatusGoesThroughTheRetryPath() throws Exception {
+        for (boolean async : new boolean[] {false, true}) {
+            JobEntity job = webhookJob("/unavailable", async);
+
+            run(job, async);
+
+            verify(retryService).handleFailure(eq(job), eq("HTTP 503"), anyLong());
+            verify(callbackService, never()).saveCompleted(job);
+        }
+    }
+
+    @Test
+    void callToAHostAtItsLimitGoesBackToTheQueueUncharged() throws Exception {
+        props.getHostIsolation().setAdaptiveConcurrency(false);
+        props.getHostIsolation().setInitialConcurrency(1);
+        HostIsolationService.Permit held = hosts.acquire("127.0.0.1");
+
+        for (boolean async : new boolean[] {false, true}) {
+            JobEntity job = webhookJob("/big", async);
+
+            run(job, async);
+
+            verify(retryService).requeue(eq(job), anyLong());
+            verify(retryService, never()).handleFailure(eq(job), any(), anyLong());
+        }
+        assertEquals(0, requests.get());
+        held.completed(200);
+    }
+
+    @Test
+    void callToAHostWithAnOpenBreakerIsDeferred() throws Exception {
+        circuitBreakers.circuitBreaker("host:127.0.0.1", "webhookHost").transitionToOpenState();
+
+        for (boolean async : new boolean[] {false, true}) {
+            JobEntity job = webhookJob("/big", async);
+
+            run(job, async);
+
+            verify(retryService).defer(eq(job), anyLong(), contains("open circuit"));
+            verify(retryService, never()).requeue(eq(job), anyLong());
+        }
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void localJobRunsItsHandlerWithoutTouchingTheNetwork() {
+        JobEntity job = localJob("reindex", "{}");
+
+        executor.execute(job);
+
+        assertEquals(JobStatus.SUCCESS, job.getStatus());
+        assertEquals("x".repeat(10), job.getResult());
+        assertEquals(100L, job.getResultBytes());
+        verify(callbackService).saveCompleted(job);
+        verifyNoInteractions(httpClient, hostIsolation, signer, batcher);
+    }
+
+    @Test
+    void handlerExceptionFailsTheAttempt() {
+        JobEntity job = localJob("reindex", "{\"fail\":true}");
+
+        executor.execute(job);
+
+        verify(retryService).handleFailure(eq(job), eq("index locked"), anyLong());
+        verify(jobRepo, never()).save(job);
+    }
+
+    @Test
+    void localJobWithoutAHandlerFails() {
+        JobEntity job = localJob("unknown", "{}");
+
+        executor.execute(job);
+
+        verify(retryService).handleFailure(eq(job), eq("No local handler for jobType: unknown"), anyLong());
+        verify(jobRepo, never()).save(job);
+    }
+}
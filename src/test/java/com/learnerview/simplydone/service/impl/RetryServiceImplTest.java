@@ -7,6 +7,9 @@ import com.learnerview.simplydone.model.JobPriority;
 import com.learnerview.simplydone.model.JobStatus;
 import com.learnerview.simplydone.repository.JobEntityRepository;
 import com.learnerview.simplydone.repository.JobExecutionLogRepository;
+import com.learnerview.simplydone.repository.QueueRepository;
+import com.learnerview.simplydone.service.CallbackService;
+import com.learnerview.simplydone.service.RedisModeController;
 import com.learnerview.simplydone.service.SseEmitterService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,8 +24,11 @@ import java.util.Map;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +43,15 @@ class RetryServiceImplTest {
     @Mock
     private SseEmitterService sseEmitterService;
 
+    @Mock
+    private CallbackService callbackService;
+
+    @Mock
+    private QueueRepository queueRepo;
+
+    @Mock
+    private RedisModeController redisMode;
+
     private RetryServiceImpl retryService;
 
     @BeforeEach
@@ -45,7 +60,7 @@ class RetryServiceImplTest {
         props.getRetry().setInitialDelaySeconds(5);
         props.getRetry().setBackoffMultiplier(2.0);
         props.getRetry().setMaxAttempts(3);
-        retryService = new RetryServiceImpl(jobRepo, logRepo, props, sseEmitterService);
+        retryService = new RetryServiceImpl(jobRepo, logRepo, props, sseEmitterService, callbackService, queueRepo, redisMode);
     }
 
     @Test
@@ -103,7 +118,6 @@ class RetryServiceImplTest {
                 .maxAttempts(3)
                 .build();
 
-        when(jobRepo.save(any(JobEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(logRepo.save(any(JobExecutionLog.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         retryService.handleFailure(job, "downstream unavailable", 250L);
@@ -116,7 +130,8 @@ class RetryServiceImplTest {
         assertNull(job.getLeaseOwner());
         assertNull(job.getLeaseToken());
 
-        verify(jobRepo).save(job);
+        verify(callbackService).saveCompleted(job);
+        verify(jobRepo, never()).save(job);
         verify(sseEmitterService).broadcast("tenant-b", "JOB_FAILED", Map.of(
                 "id", "job-2",
                 "jobType", "webhook",
@@ -125,4 +140,29 @@ class RetryServiceImplTest {
                 "attempts", 3
         ));
     }
-}
\ No newline at end of file
+
+    @Test
+    void requeuePutsABusyHostsJobBackWithoutAnEvent() {
+        JobEntity job = JobEntity.builder()
+                .id("job-3")
+                .producer("tenant-c")
+                .priority(JobPriority.HIGH)
+                .status(JobStatus.RUNNING)
+                .attemptCount(1)
+                .leaseOwner("worker-a")
+                .leaseToken("token")
+                .build();
+        when(redisMode.isRedisAvailable()).thenReturn(true);
+
+        Instant before = Instant.now();
+        retryService.requeue(job, 1_000);
+
+        assertEquals(JobStatus.QUEUED, job.getStatus());
+        assertEquals(1, job.getAttemptCount());
+        assertNull(job.getLeaseOwner());
+        assertTrue(!job.getNextRunAt().isBefore(before.plusMillis(1_000)));
+        verify(jobRepo).save(job);
+        verify(queueRepo).enqueue("job-3", "tenant-c", JobPriority.HIGH, job.getNextRunAt().toEpochMilli());
+        verifyNoInteractions(sseEmitterService, logRepo);
+    }
+}
@@ -0,0 +1,181 @@
+package com.learnerview.simplydone.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnerview.simplydone.config.SchedulerProperties;
+import com.learnerview.simplydone.entity.JobEntity;
+import com.learnerview.simplydone.exception.HostUnavailableException;
+import com.learnerview.simplydone.service.HostIsolationService;
+import com.learnerview.simplydone.service.WebhookSigner;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookBatcherTest {
+
+    @Mock
+    private WebhookSigner signer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SchedulerProperties props = new SchedulerProperties();
+    private final BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+    private volatile int responseStatus = 200;
+
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private WebhookBatcher batcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/batch", exchange -> {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            received.add(request);
+            StringBuilder results = new StringBuilder("{\"results\":[");
+            for (JsonNode job : request.path("jobs")) {
+                String id = job.path("id").asText();
+                if (id.endsWith("-missing")) continue;
+                if (results.charAt(results.length() - 1) != '[') results.append(',');
+                results.append(id.endsWith("-fail")
+                        ? "{\"id\":\"" + id + "\",\"success\":false,\"error\":\"boom\"}"
+                        : "{\"id\":\"" + id + "\",\"success\":true,\"result\":" + job.path("payload") + "}");
+            }
+            byte[] body = results.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(responseStatus, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        httpClient = HttpClients.createDefault();
+        props.getBatchHttp().setMaxItems(3);
+        props.getBatchHttp().setMaxWaitMs(5_000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        batcher.shutdown();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    private WebhookBatcher newBatcher() {
+        HostIsolationService hostIsolation = new HostIsolationService(CircuitBreakerRegistry.of(
+                Map.of("webhookHost", CircuitBreakerConfig.ofDefaults())),
+                new SimpleMeterRegistry(), props);
+        return new WebhookBatcher(httpClient, signer, hostIsolation, objectMapper, new SimpleMeterRegistry(), props);
+    }
+
+    private JobEntity job(String id, String producer) {
+        return JobEntity.builder()
+                .id(id)
+                .producer(producer)
+                .executionType("BATCH_HTTP")
+                .executionEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/batch")
+                .payload("{\"n\":\"" + id + "\"}")
+                .build();
+    }
+
+    @Test
+    void fullBatchGoesOutAsOneRequestAndEachJobGetsItsOwnResult() throws Exception {
+        batcher = newBatcher();
+
+        CompletableFuture<CappedBody.Result> ok = batcher.submit(job("a-ok", "acme"));
+        CompletableFuture<CappedBody.Result> failed = batcher.submit(job("b-fail", "acme"));
+        CompletableFuture<CappedBody.Result> missing = batcher.submit(job("c-missing", "acme"));
+
+        assertEquals("{\"n\":\"a-ok\"}", ok.get(5, TimeUnit.SECONDS).text());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals("boom", error.getCause().getMessage());
+        error = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+        assertEquals("No result for job in batch response", error.getCause().getMessage());
+
+        JsonNode request = received.poll(1, TimeUnit.SECONDS);
+        assertEquals(3, request.path("jobs").size());
+        assertEquals("a-ok", request.path("jobs").get(0).path("payload").path("n").asText());
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS), "the three jobs share one request");
+    }
+
+    @Test
+    void partialBatchIsSentOnceTheFirstJobHasWaitedLongEnough() throws Exception {
+        props.getBatchHttp().setMaxWaitMs(20);
+        batcher = newBatcher();
+
+        CompletableFuture<CappedBody.Result> first = batcher.submit(job("a", "acme"));
+        CompletableFuture<CappedBody.Result> other = batcher.submit(job("b", "globex"));
+
+        assertEquals("{\"n\":\"a\"}", first.get(5, TimeUnit.SECONDS).text());
+        assertEquals("{\"n\":\"b\"}", other.get(5, TimeUnit.SECONDS).text());
+        assertEquals(1, received.poll(1, TimeUnit.SECONDS).path("jobs").size());
+        assertEquals(1, received.poll(1, TimeUnit.SECONDS).path("jobs").size(), "producers are batched separately");
+    }
+
+    @Test
+    void shutdownHandsOpenBatchesBackWithoutSendingThem() {
+        batcher = newBatcher();
+
+        CompletableFuture<CappedBody.Result> pending = batcher.submit(job("a", "acme"));
+        batcher.shutdown();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> pending.get(1, TimeUnit.SECONDS));
+        HostUnavailableException deferral = assertInstanceOf(HostUnavailableException.class, error.getCause());
+        assertTrue(deferral.isBusy());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void errorStatusFailsEveryJobInTheBatch() {
+        responseStatus = 503;
+        props.getBatchHttp().setMaxItems(2);
+        batcher = newBatcher();
+
+        List<CompletableFuture<CappedBody.Result>> results = List.of(
+                batcher.submit(job("a", "acme")), batcher.submit(job("b", "acme")));
+
+        for (CompletableFuture<CappedBody.Result> result : results) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals("HTTP 503", error.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void responseOverTheBatchCapFailsEveryJobInTheBatch() {
+        props.getBatchHttp().setMaxItems(2);
+        props.getBatchHttp().setMaxResponseBytes(16);
+        batcher = newBatcher();
+
+        List<CompletableFuture<CappedBody.Result>> results = List.of(
+                batcher.submit(job("a", "acme")), batcher.submit(job("b", "acme")));
+
+        for (CompletableFuture<CappedBody.Result> result : results) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals("Batch response exceeded 16 bytes", error.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.learnerview.simplydone.service.scheduling;
+
+import com.learnerview.simplydone.model.JobPriority;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicySimulatorTest {
+
+    private static final int[] WEIGHTS = {70, 20, 10};
+
+    /** 100 jobs/s against a worker that completes about 80/s, so the lanes compete. */
+    private final List<PolicySimulator.Arrival> overload =
+            PolicySimulator.syntheticTrace(42, 3_000, 100, new double[]{0.6, 0.3, 0.1}, 50);
+    private final PolicySimulator simulator = new PolicySimulator(4, 5_000);
+
+    @Test
+    void sameTraceGivesTheSameReport() {
+        PolicySimulator.Report first = simulator.run("AGING", clock -> new AgingPriorityPolicy(3, 1000, clock), overload);
+        PolicySimulator.Report second = simulator.run("AGING", clock -> new AgingPriorityPolicy(3, 1000, clock), overload);
+
+        assertEquals(first, second);
+        assertEquals(3_000, first.lanes().stream().mapToInt(PolicySimulator.LaneStats::jobs).sum());
+    }
+
+    @Test
+    void agingBoundsTheWaitThatStrictPriorityLetsGrow() {
+        PolicySimulator.Report strict = simulator.run("STRICT", clock -> new StrictPriorityPolicy(3), overload);
+        PolicySimulator.Report aging = simulator.run("AGING", clock -> new AgingPriorityPolicy(3, 1000, clock), overload);
+        PolicySimulator.Report drr = simulator.run("DRR", clock -> new DeficitRoundRobinPolicy(WEIGHTS), overload);
+
+        assertTrue(strict.lane(JobPriority.HIGH).p99Ms() <= drr.lane(JobPriority.HIGH).p99Ms());
+        assertTrue(aging.lane(JobPriority.LOW).maxMs() < strict.lane(JobPriority.LOW).maxMs(),
+                () -> "aging should cut the longest LOW wait\n" + strict + "\n" + aging);
+        assertEquals(strict.makespanMs(), drr.makespanMs(), 1_000, "every policy keeps the worker busy");
+    }
+
+    @Test
+    void chargingByCostCutsMeanWaitWhenOneLaneRunsLongJobs() {
+        List<PolicySimulator.Arrival> mixed = new ArrayList<>();
+        for (int n = 0; n < 2_000; n++) {
+            mixed.add(new PolicySimulator.Arrival(n * 10L, JobPriority.HIGH, 400));
+            mixed.add(new PolicySimulator.Arrival(n * 10L + 5, JobPriority.LOW, 10));
+        }
+
+        PolicySimulator.Report byCount = simulator.run("DRR", clock -> new DeficitRoundRobinPolicy(WEIGHTS), mixed);
+        PolicySimulator.Report byCost = new PolicySimulator(4, 5_000, true)
+                .run("DRR+cost", clock -> new DeficitRoundRobinPolicy(WEIGHTS), mixed);
+
+        assertTrue(byCost.meanWaitMs() < byCount.meanWaitMs(), () -> byCount + "\n" + byCost);
+        assertTrue(byCost.lane(JobPriority.LOW).p95Ms() < byCount.lane(JobPriority.LOW).p95Ms());
+    }
+
+    @Test
+    void idleWorkerDispatchesOnArrival() {
+        List<PolicySimulator.Arrival> trace = List.of(
+                new PolicySimulator.Arrival(0, JobPriority.LOW, 100),
+                new PolicySimulator.Arrival(500, JobPriority.HIGH, 100));
+
+        PolicySimulator.Report report = new PolicySimulator(1, 1_000)
+                .run("STRICT", clock -> new StrictPriorityPolicy(3), trace);
+
+        assertEquals(0, report.lane(JobPriority.LOW).maxMs());
+        assertEquals(0, report.lane(JobPriority.HIGH).maxMs());
+        assertEquals(600, report.makespanMs());
+    }
+
+    @Test
+    void readsJsonLinesTraces(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("trace.jsonl");
+        Files.writeString(file, """
+                {"atMs":0,"priority":"HIGH","serviceMs":40}
+
+                {"atMs":15,"priority":"LOW","serviceMs":5}
+                """);
+
+        assertEquals(List.of(new PolicySimulator.Arrival(0, JobPriority.HIGH, 40),
+                new PolicySimulator.Arrival(15, JobPriority.LOW, 5)), PolicySimulator.readTrace(file));
+    }
+}
@@ -0,0 +1,49 @@
+package com.learnerview.simplydone.service.scheduling;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays an arrival trace against every built-in policy and prints per-lane throughput and waits.
+ * {@code mvn test -Dtest=SchedulingPolicyComparison -Dsimplydone.sim.trace=synthetic}
+ */
+@EnabledIfSystemProperty(named = "simplydone.sim.trace", matches = ".+")
+class SchedulingPolicyComparison {
+
+    private final String source = System.getProperty("simplydone.sim.trace");
+    private final int[] weights = Arrays.stream(System.getProperty("simplydone.sim.weights", "70,20,10").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).toArray();
+    private final int concurrency = Integer.getInteger("simplydone.sim.concurrency", 4);
+    private final long agingIntervalMs = Long.getLong("simplydone.sim.aging-interval-ms", 5_000L);
+    private final long starvationMs = Long.getLong("simplydone.sim.starvation-ms", 30_000L);
+
+    @Test
+    void compareBuiltInPolicies() throws IOException {
+        List<PolicySimulator.Arrival> trace = "synthetic".equals(source)
+                ? PolicySimulator.syntheticTrace(1, 20_000, 100, new double[]{0.6, 0.3, 0.1}, 50)
+                : PolicySimulator.readTrace(Path.of(source));
+
+        SchedulerProperties.Scheduler config = new SchedulerProperties().getScheduler();
+        config.getWeights().setHigh(weights[0]);
+        config.getWeights().setNormal(weights[1]);
+        config.getWeights().setLow(weights[2]);
+        config.getAging().setIntervalMs(agingIntervalMs);
+
+        PolicySimulator byCount = new PolicySimulator(concurrency, starvationMs);
+        PolicySimulator byCost = new PolicySimulator(concurrency, starvationMs, true);
+        for (SchedulerProperties.Policy policy : SchedulerProperties.Policy.values()) {
+            config.setPolicy(policy);
+            System.out.println(byCount.run(policy.name(), clock -> SchedulingPolicy.fromConfig(config, clock), trace));
+            if (policy == SchedulerProperties.Policy.DRR || policy == SchedulerProperties.Policy.WFQ) {
+                System.out.println(byCost.run(policy.name() + "+cost",
+                        clock -> SchedulingPolicy.fromConfig(config, clock), trace));
+            }
+        }
+    }
+}
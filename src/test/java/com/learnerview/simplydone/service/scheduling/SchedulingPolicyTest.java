@@ -0,0 +1,131 @@
+package com.learnerview.simplydone.service.scheduling;
+
+import com.learnerview.simplydone.config.SchedulerProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchedulingPolicyTest {
+
+    private static final int[] WEIGHTS = {70, 20, 10};
+    private static final long UNKNOWN = Long.MAX_VALUE;
+
+    @Test
+    void drrSplitsSlotsByWeight() {
+        assertArrayEquals(new int[]{7, 2, 1},
+                new DeficitRoundRobinPolicy(WEIGHTS).allocate(10, new long[]{UNKNOWN, UNKNOWN, UNKNOWN}));
+    }
+
+    @Test
+    void wfqSplitsSlotsByWeight() {
+        assertArrayEquals(new int[]{70, 20, 10},
+                new WeightedFairQueuingPolicy(WEIGHTS).allocate(100, new long[]{UNKNOWN, UNKNOWN, UNKNOWN}));
+    }
+
+    @Test
+    void slotsALaneCannotUseGoToTheOthers() {
+        long[] ready = {UNKNOWN, 1, 0};
+        assertArrayEquals(new int[]{9, 1, 0}, new DeficitRoundRobinPolicy(WEIGHTS).allocate(10, ready));
+        assertArrayEquals(new int[]{9, 1, 0}, new WeightedFairQueuingPolicy(WEIGHTS).allocate(10, ready));
+    }
+
+    @Test
+    void idleLaneDoesNotBurstWhenItsWorkReturns() {
+        SchedulingPolicy drr = new DeficitRoundRobinPolicy(WEIGHTS);
+        SchedulingPolicy wfq = new WeightedFairQueuingPolicy(WEIGHTS);
+        for (int tick = 0; tick < 1_000; tick++) {
+            drr.allocate(1_000, new long[]{UNKNOWN, 0, 0});
+            wfq.allocate(1_000, new long[]{UNKNOWN, 0, 0});
+        }
+
+        long[] allBusy = {UNKNOWN, UNKNOWN, UNKNOWN};
+        assertArrayEquals(new int[]{7, 2, 1}, drr.allocate(10, allBusy), "DRR banks nothing while NORMAL and LOW are empty");
+        assertTrue(wfq.allocate(10, allBusy)[0] >= 6, "WFQ keeps HIGH at its share");
+    }
+
+    @Test
+    void drrKeepsADebtThroughAnIdlePeriod() {
+        DeficitRoundRobinPolicy drr = new DeficitRoundRobinPolicy(new int[]{1, 1, 1});
+        drr.charge(1, 2.0);
+        drr.allocate(30, new long[]{UNKNOWN, 0, UNKNOWN});
+
+        int[] slots = drr.allocate(6, new long[]{UNKNOWN, UNKNOWN, UNKNOWN});
+        assertTrue(slots[1] < slots[0], "the expensive lane still pays for its last job");
+    }
+
+    @Test
+    void refundedSlotsAreNotCharged() {
+        SchedulingPolicy wfq = new WeightedFairQueuingPolicy(new int[]{1, 1, 1});
+        long[] ready = {UNKNOWN, UNKNOWN, UNKNOWN};
+        assertArrayEquals(new int[]{1, 1, 1}, wfq.allocate(3, ready));
+        wfq.refund(0, 1);
+
+        assertArrayEquals(new int[]{1, 0, 0}, wfq.allocate(1, ready));
+    }
+
+    @Test
+    void lanesChargedForLongJobsGetFewerSlots() {
+        long[] ready = {UNKNOWN, UNKNOWN, UNKNOWN};
+        for (SchedulingPolicy policy : List.of(new DeficitRoundRobinPolicy(WEIGHTS), new WeightedFairQueuingPolicy(WEIGHTS))) {
+            int[] first = policy.allocate(10, ready);
+            for (int n = 0; n < first[0]; n++) {
+                policy.charge(0, 3.0);
+            }
+
+            assertTrue(policy.allocate(10, ready)[0] < first[0], policy.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void strictPriorityDrainsHigherLanesFirst() {
+        assertArrayEquals(new int[]{3, 5, 2}, new StrictPriorityPolicy(3).allocate(10, new long[]{3, 5, 100}));
+    }
+
+    @Test
+    void agingLetsAStarvedLaneThroughAndStrictDoesNot() {
+        SimulatedClock clock = new SimulatedClock(0);
+        SchedulingPolicy aging = new AgingPriorityPolicy(3, 1000, clock);
+        SchedulingPolicy strict = new StrictPriorityPolicy(3);
+        long[] ready = {UNKNOWN, 0, UNKNOWN};
+
+        int agedLow = 0;
+        int strictLow = 0;
+        for (int tick = 0; tick < 100; tick++) {
+            agedLow += aging.allocate(1, ready)[2];
+            strictLow += strict.allocate(1, ready)[2];
+            clock.advance(100);
+        }
+
+        assertEquals(0, strictLow);
+        assertTrue(agedLow >= 3 && agedLow <= 5, "LOW should get a slot every few intervals, got " + agedLow);
+    }
+
+    @Test
+    void agingLaneThatFilledNothingKeepsItsAge() {
+        SimulatedClock clock = new SimulatedClock(0);
+        SchedulingPolicy aging = new AgingPriorityPolicy(3, 1000, clock);
+        long[] ready = {UNKNOWN, 0, UNKNOWN};
+        for (int tick = 0; tick < 3; tick++) {
+            assertArrayEquals(new int[]{1, 0, 0}, aging.allocate(1, ready));
+            clock.advance(1000);
+        }
+
+        assertArrayEquals(new int[]{0, 0, 1}, aging.allocate(1, ready), "LOW has caught up with HIGH");
+        aging.refund(2, 1);
+        assertArrayEquals(new int[]{0, 0, 1}, aging.allocate(1, ready), "a refunded LOW slot is retried first");
+    }
+
+    @Test
+    void configSelectsThePolicy() {
+        SchedulerProperties.Scheduler config = new SchedulerProperties().getScheduler();
+        assertInstanceOf(DeficitRoundRobinPolicy.class, SchedulingPolicy.fromConfig(config, Clock.systemUTC()));
+        config.setPolicy(SchedulerProperties.Policy.AGING);
+        assertInstanceOf(AgingPriorityPolicy.class, SchedulingPolicy.fromConfig(config, Clock.systemUTC()));
+    }
+}